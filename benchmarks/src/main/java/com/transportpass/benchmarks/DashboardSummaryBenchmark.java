@@ -0,0 +1,70 @@
+package com.transportpass.benchmarks;
+
+import com.transportpass.DashboardAggregates;
+import com.transportpass.Pass;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The dashboard figures behind updateSummary: building {@link DashboardAggregates} over a freshly
+ * loaded list, reading the summary, and keeping it current while a row is edited.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DashboardSummaryBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private ObservableList<Pass> passes;
+    private DashboardAggregates aggregates;
+    private Pass[] edits;
+    private final SplittableRandom random = new SplittableRandom(7);
+
+    @Setup
+    public void setUp() {
+        passes = FXCollections.observableArrayList(SyntheticPasses.generate(rows, 42));
+        aggregates = new DashboardAggregates(passes);
+        passes.forEach(pass -> pass.setObserver(aggregates));
+        edits = SyntheticPasses.generate(1_024, 99);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public DashboardAggregates build() {
+        return new DashboardAggregates(passes);
+    }
+
+    @Benchmark
+    public void summary(Blackhole blackhole) {
+        blackhole.consume(aggregates.total());
+        blackhole.consume(aggregates.active());
+        blackhole.consume(aggregates.expiringSoon());
+        blackhole.consume(aggregates.countByType());
+    }
+
+    @Benchmark
+    public int editRowThenSummary() {
+        passes.get(random.nextInt(rows)).updateFrom(edits[random.nextInt(edits.length)]);
+        return aggregates.active() + aggregates.expiringSoon();
+    }
+}
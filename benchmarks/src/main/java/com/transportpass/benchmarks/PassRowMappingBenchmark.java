@@ -0,0 +1,96 @@
+package com.transportpass.benchmarks;
+
+import com.transportpass.Pass;
+import com.transportpass.PassRepository;
+import org.h2.tools.SimpleResultSet;
+import org.h2.tools.SimpleRowSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ResultSet-to-Pass mapping as done by loadPasses, without the network or the database: rows come
+ * from an in-memory result set built from a small pool of distinct values, so the figure is the
+ * driver-independent cost of {@link PassRepository#mapRow} per full load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PassRowMappingBenchmark {
+
+    private static final int DISTINCT_ROWS = 4_096;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private Object[][] values;
+
+    @Setup
+    public void setUp() {
+        values = new Object[DISTINCT_ROWS][];
+        Pass[] passes = SyntheticPasses.generate(DISTINCT_ROWS, 42);
+        for (int i = 0; i < DISTINCT_ROWS; i++) {
+            Pass pass = passes[i];
+            values[i] = new Object[] {
+                    pass.getId(), pass.getPassengerName(), pass.getPassType(), pass.getDurationType(),
+                    pass.getDurationDays(), pass.getSource(), pass.getDestination(),
+                    Date.valueOf(pass.getValidUntilDate())
+            };
+        }
+    }
+
+    @Benchmark
+    public void mapAllRows(Blackhole blackhole) throws SQLException {
+        try (SimpleResultSet rs = resultSet()) {
+            while (rs.next()) {
+                blackhole.consume(PassRepository.mapRow(rs));
+            }
+        }
+    }
+
+    /** Streams {@code rows} rows, cycling through the prepared values. */
+    private SimpleResultSet resultSet() {
+        int[] next = {0};
+        SimpleResultSet rs = new SimpleResultSet(new SimpleRowSource() {
+            @Override
+            public Object[] readRow() {
+                return next[0] < rows ? values[next[0]++ % DISTINCT_ROWS] : null;
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public void reset() {
+                next[0] = 0;
+            }
+        });
+        rs.addColumn("id", Types.INTEGER, 10, 0);
+        rs.addColumn("passenger_name", Types.VARCHAR, 100, 0);
+        rs.addColumn("pass_type", Types.VARCHAR, 100, 0);
+        rs.addColumn("duration_type", Types.VARCHAR, 20, 0);
+        rs.addColumn("duration_days", Types.INTEGER, 10, 0);
+        rs.addColumn("source", Types.VARCHAR, 100, 0);
+        rs.addColumn("destination", Types.VARCHAR, 100, 0);
+        rs.addColumn("valid_until", Types.DATE, 10, 0);
+        return rs;
+    }
+}
@@ -0,0 +1,62 @@
+package com.transportpass.benchmarks;
+
+import com.transportpass.Pass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** Status column and expiry checks over every row, as the table and the dashboard evaluate them. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PassStatusBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private Pass[] passes;
+
+    @Setup
+    public void setUp() {
+        passes = SyntheticPasses.generate(rows, 42);
+    }
+
+    @Benchmark
+    public void computeStatus(Blackhole blackhole) {
+        for (Pass pass : passes) {
+            blackhole.consume(pass.computeStatus());
+        }
+    }
+
+    @Benchmark
+    public int isActive() {
+        int active = 0;
+        for (Pass pass : passes) {
+            if (pass.isActive()) active++;
+        }
+        return active;
+    }
+
+    @Benchmark
+    public long daysUntilExpiry() {
+        long sum = 0;
+        for (Pass pass : passes) {
+            sum += pass.daysUntilExpiry();
+        }
+        return sum;
+    }
+}
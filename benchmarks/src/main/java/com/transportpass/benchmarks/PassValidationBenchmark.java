@@ -0,0 +1,62 @@
+package com.transportpass.benchmarks;
+
+import com.transportpass.AppConfig;
+import com.transportpass.Pass;
+import com.transportpass.PassRepository;
+import com.transportpass.PassRules;
+import com.transportpass.PassValidationIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gate lookups against {@link PassValidationIndex} filled with synthetic passes; no database is
+ * needed. Run with {@code -t <threads>} for concurrent gates and {@code -prof gc} to confirm that a
+ * lookup allocates nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PassValidationBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int passes;
+
+    private PassValidationIndex index;
+
+    /** Each gate thread draws its own pass ids and routes. */
+    @State(Scope.Thread)
+    public static class Gate {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Setup
+    public void setUp() {
+        index = new PassValidationIndex(new PassRepository(null, null), null, null, AppConfig.load());
+        for (Pass pass : SyntheticPasses.generate(passes, 42)) {
+            index.saved(pass.getId(), pass);
+        }
+    }
+
+    @Benchmark
+    public PassValidationIndex.Verdict lookup(Gate gate) {
+        List<String> stations = PassRules.STATIONS;
+        return index.lookup(1 + gate.random.nextInt(passes),
+                stations.get(gate.random.nextInt(stations.size())), stations.get(gate.random.nextInt(stations.size())));
+    }
+}
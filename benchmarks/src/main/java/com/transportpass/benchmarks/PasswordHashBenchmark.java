@@ -0,0 +1,64 @@
+package com.transportpass.benchmarks;
+
+import com.transportpass.PasswordHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one sign-in check at a given PBKDF2 work factor, next to the unsalted SHA-256 hashes that
+ * older accounts still carry until their next sign-in. Use it to pick {@code auth.pbkdf2Iterations}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+    @Param({"10000", "100000", "600000"})
+    public int iterations;
+
+    private PasswordHasher hasher;
+    private String stored;
+    private String legacyStored;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        hasher = new PasswordHasher(iterations);
+        stored = hasher.hash("counter-42-secret");
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest("counter-42-secret".getBytes(StandardCharsets.UTF_8));
+        legacyStored = HexFormat.of().formatHex(digest);
+    }
+
+    @Benchmark
+    public String hash() {
+        return hasher.hash("counter-42-secret");
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return hasher.verify("counter-42-secret", stored);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean verifyLegacySha256() {
+        return hasher.verify("counter-42-secret", legacyStored);
+    }
+}
@@ -0,0 +1,66 @@
+package com.transportpass.benchmarks;
+
+import com.transportpass.Pass;
+import com.transportpass.PassQuery;
+import com.transportpass.PassSearchIndex;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The directory filter: {@link PassSearchIndex#search} for the typed text and status toggle, then
+ * the per-row predicate the table's filtered list evaluates for every row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SearchFilterBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    /** A common name fragment, a station, a status word and an empty box with the Active toggle. */
+    @Param({"sharma", "dadar", "expiring", ""})
+    public String query;
+
+    private ObservableList<Pass> passes;
+    private PassSearchIndex index;
+    private PassQuery.Status status;
+
+    @Setup
+    public void setUp() {
+        passes = FXCollections.observableArrayList(SyntheticPasses.generate(rows, 42));
+        index = new PassSearchIndex(passes);
+        status = query.isEmpty() ? PassQuery.Status.ACTIVE : PassQuery.Status.ALL;
+    }
+
+    @Benchmark
+    public PassSearchIndex.Matches search() {
+        return index.search(query, status);
+    }
+
+    @Benchmark
+    public int searchAndFilter() {
+        PassSearchIndex.Matches matches = index.search(query, status);
+        int shown = 0;
+        for (Pass pass : passes) {
+            if (index.matches(matches, pass)) shown++;
+        }
+        return shown;
+    }
+}
@@ -0,0 +1,22 @@
+package com.transportpass.benchmarks;
+
+import com.transportpass.Days;
+import com.transportpass.Pass;
+import com.transportpass.PassDataGenerator;
+
+/** Benchmark rows from {@link PassDataGenerator}, numbered 1..n as if they had been saved. */
+final class SyntheticPasses {
+
+    private SyntheticPasses() {
+    }
+
+    static Pass[] generate(int rows, long seed) {
+        PassDataGenerator generator = new PassDataGenerator(seed, Days.todayDate());
+        Pass[] passes = new Pass[rows];
+        for (int i = 0; i < rows; i++) {
+            passes[i] = generator.next();
+            passes[i].setId(i + 1);
+        }
+        return passes;
+    }
+}
@@ -0,0 +1,104 @@
+package com.transportpass;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * Application settings read from an external properties file.
+ * The file defaults to {@code transport-pass.properties} in the working directory and can be
+ * moved with {@code -Dtransport.config=/path/to/file}; any key can also be overridden with a
+ * system property of the same name.
+ */
+public final class AppConfig {
+
+    public static final String CONFIG_PATH_PROPERTY = "transport.config";
+    public static final String DEFAULT_CONFIG_FILE = "transport-pass.properties";
+
+    private final Properties properties;
+    private final Path source;
+
+    private AppConfig(Properties properties, Path source) {
+        this.properties = properties;
+        this.source = source;
+    }
+
+    public static AppConfig load() {
+        return load(Path.of(System.getProperty(CONFIG_PATH_PROPERTY, DEFAULT_CONFIG_FILE)));
+    }
+
+    public static AppConfig load(Path path) {
+        Properties props = new Properties();
+        if (Files.isRegularFile(path)) {
+            try (InputStream in = Files.newInputStream(path)) {
+                props.load(in);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Could not read configuration from " + path, ex);
+            }
+            return new AppConfig(props, path);
+        }
+        return new AppConfig(props, null);
+    }
+
+    /** The file the settings were read from, or {@code null} when running on built-in defaults. */
+    public Path source() {
+        return source;
+    }
+
+    public String get(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = properties.getProperty(key);
+        }
+        return value == null ? defaultValue : value.trim();
+    }
+
+    /** Reads a setting that has no default, such as a credential; fails naming it when it is missing or blank. */
+    public String require(String key) {
+        return require(key, false);
+    }
+
+    /** Like {@link #require(String)}; with {@code blankAllowed} the key must be set but may be empty (e.g. {@code db.password=}). */
+    public String require(String key, boolean blankAllowed) {
+        String value = get(key, null);
+        if (value == null || (value.isEmpty() && !blankAllowed)) {
+            throw new IllegalStateException("Setting " + key + " is required; set it in "
+                    + (source == null ? DEFAULT_CONFIG_FILE : source) + " or with -D" + key + "=...");
+        }
+        return value;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        if (value == null || value.isEmpty()) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalStateException("Setting " + key + " must be a whole number, was '" + value + "'", ex);
+        }
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = get(key, null);
+        if (value == null || value.isEmpty()) return defaultValue;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalStateException("Setting " + key + " must be a whole number, was '" + value + "'", ex);
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key, null);
+        if (value == null || value.isEmpty()) return defaultValue;
+        return Boolean.parseBoolean(value);
+    }
+
+    /** Reads a duration expressed in milliseconds. */
+    public Duration getMillis(String key, long defaultMillis) {
+        return Duration.ofMillis(getLong(key, defaultMillis));
+    }
+}
@@ -0,0 +1,170 @@
+package com.transportpass;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sign-in for the desktop client and the HTTP service. Password hashing is deliberately slow, so it
+ * runs on a small bounded pool ({@code auth.hashThreads}, {@code auth.queueCapacity}) and a burst of
+ * attempts is refused rather than queued without limit. Stored hashes of known users are cached for
+ * {@code auth.userCacheMillis}, at most {@code auth.userCacheSize} of them (least recently used are
+ * dropped); unknown names are always looked up, so guessing names cannot fill the cache. A
+ * successful sign-in returns a session token so later requests are checked against the
+ * {@link SessionStore} instead of the database.
+ */
+public final class AuthService implements AutoCloseable {
+
+    public enum Outcome { SUCCESS, UNKNOWN_USER, WRONG_PASSWORD }
+
+    public record LoginResult(Outcome outcome, SessionStore.Session session) {
+        public boolean succeeded() {
+            return outcome == Outcome.SUCCESS;
+        }
+    }
+
+    /** A sign-in or registration refused because too many are already waiting for the hash pool. */
+    public static final class BusyException extends RejectedExecutionException {
+        private static final long serialVersionUID = 1L;
+
+        BusyException() {
+            super("Too many sign-ins waiting for the password hash pool");
+        }
+    }
+
+    private record CachedHash(String hash, long expiresAtNanos) {
+    }
+
+    private final UserRepository users;
+    private final PasswordHasher hasher;
+    private final SessionStore sessions;
+    private final ThreadPoolExecutor hashPool;
+    private final long userCacheNanos;
+    /** Access-ordered and guarded by its own monitor. */
+    private final Map<String, CachedHash> userCache;
+    private final LatencyHistogram loginLatency = new LatencyHistogram();
+    /** Checked for unknown users so a miss costs as much as a wrong password. */
+    private final String decoyHash;
+
+    public AuthService(UserRepository users, AppConfig config) {
+        this.users = users;
+        this.hasher = new PasswordHasher(config.getInt("auth.pbkdf2Iterations", 600_000));
+        this.sessions = new SessionStore(config.getMillis("auth.sessionTtlMillis", 30 * 60_000L));
+        this.userCacheNanos = config.getMillis("auth.userCacheMillis", 60_000).toNanos();
+        int userCacheSize = Math.max(0, config.getInt("auth.userCacheSize", 1024));
+        this.userCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedHash> eldest) {
+                return size() > userCacheSize;
+            }
+        };
+        int threads = Math.max(1, config.getInt("auth.hashThreads", Runtime.getRuntime().availableProcessors()));
+        AtomicInteger counter = new AtomicInteger();
+        this.hashPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getInt("auth.queueCapacity", 64))),
+                task -> {
+                    Thread thread = new Thread(task, "auth-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, pool) -> {
+                    if (pool.isShutdown()) throw new RejectedExecutionException("Sign-in service closed");
+                    throw new BusyException();
+                });
+        this.decoyHash = hasher.unusableHash();
+    }
+
+    /**
+     * Checks the credentials; completes exceptionally with {@link BusyException} when
+     * too many sign-ins are already waiting for the hash pool.
+     */
+    public CompletableFuture<LoginResult> login(String username, String password) {
+        long started = System.nanoTime();
+        return storedHash(username)
+                .thenComposeAsync(stored -> {
+                    boolean matches = hasher.verify(password, stored.orElse(decoyHash));
+                    if (stored.isEmpty()) {
+                        return CompletableFuture.completedFuture(new LoginResult(Outcome.UNKNOWN_USER, null));
+                    }
+                    if (!matches) {
+                        return CompletableFuture.completedFuture(new LoginResult(Outcome.WRONG_PASSWORD, null));
+                    }
+                    if (hasher.needsRehash(stored.get())) {
+                        upgradeHash(username, password);
+                    }
+                    return CompletableFuture.completedFuture(new LoginResult(Outcome.SUCCESS, sessions.issue(username)));
+                }, hashPool)
+                .whenComplete((result, ex) -> loginLatency.recordSince(started));
+    }
+
+    /** Completes exceptionally with {@link java.sql.SQLIntegrityConstraintViolationException} when the name is taken. */
+    public CompletableFuture<Void> register(String username, String password) {
+        return CompletableFuture.completedFuture(password).thenApplyAsync(hasher::hash, hashPool)
+                .thenCompose(hash -> users.create(username, hash)
+                        .whenComplete((done, ex) -> forget(username)));
+    }
+
+    /** The signed-in user for {@code token}, extending the session; empty when unknown or expired. */
+    public Optional<String> authenticate(String token) {
+        return sessions.touch(token).map(SessionStore.Session::username);
+    }
+
+    public void logout(String token) {
+        sessions.revoke(token);
+    }
+
+    public LatencyHistogram loginLatency() {
+        return loginLatency;
+    }
+
+    public SessionStore sessions() {
+        return sessions;
+    }
+
+    private CompletableFuture<Optional<String>> storedHash(String username) {
+        long now = System.nanoTime();
+        synchronized (userCache) {
+            CachedHash cached = userCache.get(username);
+            if (cached != null) {
+                if (now - cached.expiresAtNanos() < 0) {
+                    return CompletableFuture.completedFuture(Optional.of(cached.hash()));
+                }
+                userCache.remove(username);
+            }
+        }
+        return users.findPasswordHash(username).thenApply(hash -> {
+            hash.ifPresent(found -> remember(username, found));
+            return hash;
+        });
+    }
+
+    private void remember(String username, String hash) {
+        CachedHash cached = new CachedHash(hash, System.nanoTime() + userCacheNanos);
+        synchronized (userCache) {
+            userCache.put(username, cached);
+        }
+    }
+
+    private void forget(String username) {
+        synchronized (userCache) {
+            userCache.remove(username);
+        }
+    }
+
+    /** Runs on the hash pool after a successful check; a failed upgrade leaves the old hash in place. */
+    private void upgradeHash(String username, String password) {
+        String upgraded = hasher.hash(password);
+        users.updatePasswordHash(username, upgraded).thenRun(() -> remember(username, upgraded));
+    }
+
+    @Override
+    public void close() {
+        hashPool.shutdownNow();
+    }
+}
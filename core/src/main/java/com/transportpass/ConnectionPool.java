@@ -0,0 +1,502 @@
+package com.transportpass;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.logging.Logger;
+
+/**
+ * Bounded JDBC connection pool.
+ * Connections are validated on borrow when they have been idle for a while, evicted after
+ * {@code pool.idleTimeoutMillis}, and keep a small LRU cache of prepared statements so repeated
+ * queries skip the prepare round-trip. Calling {@code close()} on a borrowed connection returns it,
+ * with any transaction rolled back and auto-commit, read-only, isolation and catalog as they were
+ * when the connection was opened.
+ */
+public final class ConnectionPool implements DataSource, AutoCloseable {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final int minIdle;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutNanos;
+    private final long validationBypassNanos;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // --- metrics ---
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowWaitNanos = new AtomicLong();
+    private final LongAccumulator maxBorrowWaitNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+
+    /** Connects to the database selected by {@code storage.backend}. */
+    public ConnectionPool(AppConfig config) {
+        this(config, StorageBackend.fromConfig(config));
+    }
+
+    public ConnectionPool(AppConfig config, StorageBackend backend) {
+        this.url = backend.url(config);
+        this.user = backend.user(config);
+        this.password = backend.password(config);
+        this.maxSize = Math.max(1, config.getInt("pool.maxSize", 8));
+        this.minIdle = Math.min(maxSize, Math.max(0, config.getInt("pool.minIdle", 1)));
+        this.borrowTimeoutMillis = config.getLong("pool.borrowTimeoutMillis", 5_000);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getLong("pool.idleTimeoutMillis", 300_000));
+        this.validationBypassNanos = TimeUnit.MILLISECONDS.toNanos(config.getLong("pool.validationBypassMillis", 500));
+        this.validationTimeoutSeconds = Math.max(1, config.getInt("pool.validationTimeoutSeconds", 2));
+        this.statementCacheSize = Math.max(0, config.getInt("pool.statementCacheSize", 32));
+        this.permits = new Semaphore(maxSize, true);
+
+        long evictionIntervalMillis = Math.max(1_000, config.getLong("pool.evictionIntervalMillis", 30_000));
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::evictIdleConnections, 0, evictionIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                borrowTimeouts.incrementAndGet();
+                throw new SQLTransientConnectionException("Timed out after " + borrowTimeoutMillis
+                        + " ms waiting for a database connection (" + maxSize + " in use)");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", ex);
+        }
+        try {
+            PooledConnection pooled = takeIdleOrCreate();
+            long waited = System.nanoTime() - start;
+            borrowCount.incrementAndGet();
+            borrowWaitNanos.addAndGet(waited);
+            maxBorrowWaitNanos.accumulate(waited);
+            activeConnections.incrementAndGet();
+            return pooled.lease();
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pooled connections always use the configured credentials");
+    }
+
+    private PooledConnection takeIdleOrCreate() throws SQLException {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (System.nanoTime() - pooled.lastReturnedNanos < validationBypassNanos || isUsable(pooled)) {
+                return pooled;
+            }
+            validationFailures.incrementAndGet();
+            discard(pooled);
+        }
+        return createConnection();
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        try {
+            return pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        try {
+            PooledConnection pooled = new PooledConnection(physical);
+            totalConnections.incrementAndGet();
+            createdCount.incrementAndGet();
+            return pooled;
+        } catch (SQLException ex) {
+            physical.close();
+            throw ex;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        activeConnections.decrementAndGet();
+        try {
+            if (closed || !pooled.reset()) {
+                discard(pooled);
+            } else {
+                pooled.lastReturnedNanos = System.nanoTime();
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        pooled.closePhysical();
+    }
+
+    private void evictIdleConnections() {
+        long now = System.nanoTime();
+        Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+        while (oldestFirst.hasNext() && totalConnections.get() > minIdle) {
+            PooledConnection pooled = oldestFirst.next();
+            if (now - pooled.lastReturnedNanos > idleTimeoutNanos && idle.removeLastOccurrence(pooled)) {
+                evictedCount.incrementAndGet();
+                discard(pooled);
+            }
+        }
+        // keep a warm connection or two around so the first click after a quiet period is fast
+        while (!closed && totalConnections.get() < minIdle) {
+            try {
+                PooledConnection pooled = createConnection();
+                pooled.lastReturnedNanos = System.nanoTime();
+                idle.offerLast(pooled);
+            } catch (SQLException ex) {
+                break;
+            }
+        }
+    }
+
+    public PoolMetrics metrics() {
+        long borrows = borrowCount.get();
+        return new PoolMetrics(
+                activeConnections.get(),
+                idle.size(),
+                totalConnections.get(),
+                maxSize,
+                permits.getQueueLength(),
+                borrows,
+                borrowTimeouts.get(),
+                borrows == 0 ? 0 : borrowWaitNanos.get() / borrows / 1_000_000.0,
+                maxBorrowWaitNanos.get() / 1_000_000.0,
+                createdCount.get(),
+                evictedCount.get(),
+                validationFailures.get(),
+                statementCacheHits.get(),
+                statementCacheMisses.get());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    // --- DataSource boilerplate ---
+    @Override
+    public PrintWriter getLogWriter() {
+        return DriverManager.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        DriverManager.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) return iface.cast(this);
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /** Point-in-time view of pool sizing and borrow latency. */
+    public record PoolMetrics(int active, int idle, int total, int maxSize, int waitingThreads,
+                              long borrowCount, long borrowTimeouts,
+                              double avgBorrowWaitMillis, double maxBorrowWaitMillis,
+                              long created, long evicted, long validationFailures,
+                              long statementCacheHits, long statementCacheMisses) {
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, """
+                    Active connections: %d
+                    Idle connections: %d
+                    Open / max: %d / %d
+                    Threads waiting: %d
+                    Borrows: %d (timeouts: %d)
+                    Borrow wait avg / max: %.2f ms / %.2f ms
+                    Created / evicted / failed validation: %d / %d / %d
+                    Statement cache hits / misses: %d / %d""",
+                    active, idle, total, maxSize, waitingThreads, borrowCount, borrowTimeouts,
+                    avgBorrowWaitMillis, maxBorrowWaitMillis, created, evicted, validationFailures,
+                    statementCacheHits, statementCacheMisses);
+        }
+    }
+
+    // --- pooled connection + statement cache ---
+    private final class PooledConnection {
+        private final Connection physical;
+        private final Map<String, CachedStatement> statements;
+        /** Dropped from the cache while a borrower still had them open; closed when they are given back. */
+        private final List<CachedStatement> evictedInUse = new ArrayList<>();
+        private final boolean initialReadOnly;
+        private final int initialIsolation;
+        private final String initialCatalog;
+        /** Set when a borrower changed read-only, isolation or catalog, so release puts them back. */
+        private boolean sessionChanged;
+        private volatile long lastReturnedNanos;
+
+        PooledConnection(Connection physical) throws SQLException {
+            this.physical = physical;
+            this.initialReadOnly = physical.isReadOnly();
+            this.initialIsolation = physical.getTransactionIsolation();
+            this.initialCatalog = physical.getCatalog();
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                    if (size() <= statementCacheSize) return false;
+                    CachedStatement cached = eldest.getValue();
+                    if (cached.inUse) {
+                        cached.evicted = true;
+                        evictedInUse.add(cached);
+                    } else {
+                        cached.closeQuietly();
+                    }
+                    return true;
+                }
+            };
+        }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LeasedConnection(this));
+        }
+
+        PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+            if (statementCacheSize == 0) {
+                return physical.prepareStatement(sql, autoGeneratedKeys);
+            }
+            String key = autoGeneratedKeys + ":" + sql;
+            CachedStatement cached = statements.get(key);
+            if (cached != null && !cached.inUse && !cached.statement.isClosed()) {
+                statementCacheHits.incrementAndGet();
+                return cached.borrow();
+            }
+            statementCacheMisses.incrementAndGet();
+            PreparedStatement statement = physical.prepareStatement(sql, autoGeneratedKeys);
+            if (cached != null && cached.inUse) {
+                // the same SQL is already open on this connection; hand out an uncached copy
+                return statement;
+            }
+            cached = new CachedStatement(statement);
+            statements.put(key, cached);
+            return cached.borrow();
+        }
+
+        boolean reset() {
+            try {
+                if (physical.isClosed()) return false;
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                if (sessionChanged) {
+                    if (physical.isReadOnly() != initialReadOnly) physical.setReadOnly(initialReadOnly);
+                    if (physical.getTransactionIsolation() != initialIsolation) physical.setTransactionIsolation(initialIsolation);
+                    if (initialCatalog != null && !initialCatalog.equals(physical.getCatalog())) physical.setCatalog(initialCatalog);
+                    sessionChanged = false;
+                }
+                physical.clearWarnings();
+                for (CachedStatement cached : statements.values()) {
+                    cached.inUse = false;
+                }
+                // a borrower that never closed an evicted statement leaves it to us
+                evictedInUse.forEach(CachedStatement::closeQuietly);
+                evictedInUse.clear();
+                return true;
+            } catch (SQLException ex) {
+                return false;
+            }
+        }
+
+        void closePhysical() {
+            statements.values().forEach(CachedStatement::closeQuietly);
+            statements.clear();
+            evictedInUse.forEach(CachedStatement::closeQuietly);
+            evictedInUse.clear();
+            try {
+                physical.close();
+            } catch (SQLException ignored) {
+                // already broken, nothing left to release
+            }
+        }
+    }
+
+    private static final class CachedStatement {
+        private final PreparedStatement statement;
+        private final PreparedStatement handle;
+        private boolean inUse;
+        /** No longer in the cache; the statement is closed for real when its borrower closes it. */
+        private boolean evicted;
+
+        CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+            this.handle = (PreparedStatement) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.equals("close")) {
+                            if (inUse) {
+                                inUse = false;
+                                if (evicted) {
+                                    statement.close();
+                                } else {
+                                    statement.clearParameters();
+                                }
+                            }
+                            return null;
+                        }
+                        if (name.equals("isClosed")) {
+                            return !inUse || statement.isClosed();
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        PreparedStatement borrow() {
+            inUse = true;
+            return handle;
+        }
+
+        void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+                // statement dies with its connection anyway
+            }
+        }
+    }
+
+    private final class LeasedConnection implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean returned;
+
+        LeasedConnection(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        release(pooled);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || pooled.physical.isClosed();
+                }
+                case "toString" -> {
+                    return "Pooled" + pooled.physical;
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                default -> {
+                    // fall through to the checks below
+                }
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if (name.equals("setReadOnly") || name.equals("setTransactionIsolation") || name.equals("setCatalog")) {
+                pooled.sessionChanged = true;
+            }
+            if (name.equals("prepareStatement") && args != null) {
+                if (args.length == 1) {
+                    return pooled.prepare((String) args[0], java.sql.Statement.NO_GENERATED_KEYS);
+                }
+                if (args.length == 2 && args[1] instanceof Integer keys) {
+                    return pooled.prepare((String) args[0], keys);
+                }
+            }
+            return ConnectionPool.invoke(pooled.physical, method, args);
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.transportpass;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Dashboard totals kept up to date as passes are added, removed or edited, so reading them is O(1)
+ * instead of a rescan of every pass; edits arrive through {@link Pass.Observer}. Passes are bucketed
+ * by expiry day; when the date rolls over only the buckets entering or leaving the active /
+ * expiring-soon windows are touched.
+ */
+public final class DashboardAggregates implements Pass.Observer {
+
+    public static final int EXPIRING_WINDOW_DAYS = 5;
+
+    private final ObservableList<Pass> passes;
+    private final Map<Long, Integer> passesByExpiryDay = new HashMap<>();
+    private final Map<String, Integer> passesByType = new LinkedHashMap<>();
+    private long today;
+    private int active;
+    private int expiringSoon;
+
+    public DashboardAggregates(ObservableList<Pass> passes) {
+        this.passes = passes;
+        this.today = Days.today();
+        passes.forEach(this::track);
+        passes.addListener((ListChangeListener<Pass>) change -> {
+            while (change.next()) {
+                if (change.wasPermutated() || change.wasUpdated()) continue;
+                change.getRemoved().forEach(this::untrack);
+                change.getAddedSubList().forEach(this::track);
+            }
+        });
+    }
+
+    public int total() {
+        return passes.size();
+    }
+
+    public int active() {
+        rollOver();
+        return active;
+    }
+
+    public int expiringSoon() {
+        rollOver();
+        return expiringSoon;
+    }
+
+    /** Pass counts per pass type, in first-seen order. */
+    public Map<String, Integer> countByType() {
+        return new LinkedHashMap<>(passesByType);
+    }
+
+    /** Rows report edits here; the old values are taken out before the change and put back after it. */
+    @Override
+    public void beforeChange(Pass pass) {
+        untrack(pass);
+    }
+
+    @Override
+    public void afterChange(Pass pass) {
+        track(pass);
+    }
+
+    private void track(Pass pass) {
+        increment(passesByType, pass.getPassType());
+        addExpiry(pass.getValidUntilEpochDay(), 1);
+    }
+
+    private void untrack(Pass pass) {
+        decrement(passesByType, pass.getPassType());
+        addExpiry(pass.getValidUntilEpochDay(), -1);
+    }
+
+    private void addExpiry(long day, int delta) {
+        passesByExpiryDay.merge(day, delta, (a, b) -> a + b == 0 ? null : a + b);
+        if (day >= today) {
+            active += delta;
+            if (day <= today + EXPIRING_WINDOW_DAYS) {
+                expiringSoon += delta;
+            }
+        }
+    }
+
+    /** Advances the windows to the current date, touching only the day buckets that cross a boundary. */
+    private void rollOver() {
+        long now = Days.today();
+        if (now < today) {
+            // clock moved backwards; rebuild the two counters from the day buckets
+            today = now;
+            active = 0;
+            expiringSoon = 0;
+            passesByExpiryDay.forEach((day, count) -> {
+                if (day >= today) active += count;
+                if (day >= today && day <= today + EXPIRING_WINDOW_DAYS) expiringSoon += count;
+            });
+            return;
+        }
+        while (today < now) {
+            int leaving = passesByExpiryDay.getOrDefault(today, 0);
+            active -= leaving;
+            expiringSoon -= leaving;
+            today++;
+            expiringSoon += passesByExpiryDay.getOrDefault(today + EXPIRING_WINDOW_DAYS, 0);
+        }
+    }
+
+    private static void increment(Map<String, Integer> counts, String key) {
+        if (key != null) counts.merge(key, 1, Integer::sum);
+    }
+
+    private static void decrement(Map<String, Integer> counts, String key) {
+        if (key != null) counts.merge(key, -1, (a, b) -> a + b == 0 ? null : a + b);
+    }
+}
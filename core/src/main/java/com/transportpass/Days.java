@@ -0,0 +1,43 @@
+package com.transportpass;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/** Cheap access to today's date as an epoch day, recomputed only when the wall clock passes midnight. */
+public final class Days {
+
+    private static volatile Clock clock = Clock.systemDefaultZone();
+    private static volatile long today;
+    private static volatile long nextMidnightMillis;
+
+    private Days() {
+    }
+
+    public static long today() {
+        long now = clock.millis();
+        if (now >= nextMidnightMillis) {
+            recompute(now);
+        }
+        return today;
+    }
+
+    public static LocalDate todayDate() {
+        return LocalDate.ofEpochDay(today());
+    }
+
+    /** Replaces the wall clock, e.g. for tests that cross midnight; {@code null} goes back to the system clock. */
+    static synchronized void setClock(Clock replacement) {
+        clock = replacement == null ? Clock.systemDefaultZone() : replacement;
+        nextMidnightMillis = Long.MIN_VALUE;
+    }
+
+    private static synchronized void recompute(long now) {
+        if (now < nextMidnightMillis) return;
+        Clock current = clock;
+        ZoneId zone = current.getZone();
+        LocalDate date = LocalDate.now(current);
+        today = date.toEpochDay();
+        nextMidnightMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+}
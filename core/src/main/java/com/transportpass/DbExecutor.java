@@ -0,0 +1,125 @@
+package com.transportpass;
+
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs JDBC work off the calling thread, one virtual thread per request.
+ * Futures returned here can be cancelled; cancelling interrupts the worker, which aborts a
+ * blocked socket read and makes the pool discard that connection. {@link #cancelAll} only cancels
+ * work submitted with {@link #submitCancellable} (reads, and imports and exports that stop cleanly
+ * between chunks), so a single-row write that may already have committed is never reported as cancelled.
+ * With {@link #setMetrics} each call is timed under {@code db.<operation>}, and failures are
+ * counted under {@code db.<operation>.errors} and {@code db.errors}.
+ */
+public final class DbExecutor implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface SqlCall<T> {
+        T call() throws SQLException;
+    }
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("db-", 0).factory());
+    private final Set<CompletableFuture<?>> running = ConcurrentHashMap.newKeySet();
+    private final Set<CompletableFuture<?>> cancellable = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile IntConsumer inFlightListener = count -> { };
+    private volatile Metrics metrics;
+
+    public <T> CompletableFuture<T> submit(SqlCall<T> work) {
+        return submit("other", work);
+    }
+
+    /** Runs {@code work}, timing it as {@code operation} (e.g. {@code pass.insert}) when metrics are on. */
+    public <T> CompletableFuture<T> submit(String operation, SqlCall<T> work) {
+        return submit(operation, false, work);
+    }
+
+    /** Like {@link #submit(String, SqlCall)}, for work that {@link #cancelAll} may stop. */
+    public <T> CompletableFuture<T> submitCancellable(String operation, SqlCall<T> work) {
+        return submit(operation, true, work);
+    }
+
+    private <T> CompletableFuture<T> submit(String operation, boolean userCancellable, SqlCall<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        running.add(result);
+        if (userCancellable) cancellable.add(result);
+        inFlightListener.accept(inFlight.incrementAndGet());
+        Metrics recorder = metrics;
+        Future<?> task = executor.submit(() -> {
+            long start = System.nanoTime();
+            T value;
+            try {
+                value = work.call();
+            } catch (Throwable ex) {
+                if (recorder != null) {
+                    recorder.timer("db." + operation).recordSince(start);
+                    recorder.counter("db." + operation + ".errors").increment();
+                    recorder.counter("db.errors").increment();
+                }
+                result.completeExceptionally(ex);
+                return;
+            }
+            // recorded before completing, so whoever sees the result also sees its timing
+            if (recorder != null) recorder.timer("db." + operation).recordSince(start);
+            result.complete(value);
+        });
+        result.whenComplete((value, ex) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+            running.remove(result);
+            cancellable.remove(result);
+            inFlightListener.accept(inFlight.decrementAndGet());
+        });
+        return result;
+    }
+
+    /** Called from whichever thread starts or finishes a request; callers marshal to their UI thread. */
+    public void setInFlightListener(IntConsumer listener) {
+        this.inFlightListener = listener == null ? count -> { } : listener;
+    }
+
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /** Cancels the cancellable work in flight; returns how many requests were stopped. */
+    public int cancelAll() {
+        int cancelled = 0;
+        for (CompletableFuture<?> future : cancellable) {
+            if (future.cancel(true)) cancelled++;
+        }
+        return cancelled;
+    }
+
+    /** Strips the {@link CompletionException} wrapper that dependent stages add. */
+    public static Throwable unwrap(Throwable ex) {
+        Throwable cause = ex;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    @Override
+    public void close() {
+        for (CompletableFuture<?> future : running) {
+            future.cancel(true);
+        }
+        executor.shutdownNow();
+    }
+}
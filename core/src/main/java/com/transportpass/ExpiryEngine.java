@@ -0,0 +1,126 @@
+package com.transportpass;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reports the passes whose status moves when the date changes: those entering the expiring-soon
+ * window ({@link DashboardAggregates#EXPIRING_WINDOW_DAYS} days before expiry) and those that have
+ * just expired. Passes that have not expired yet sit in a calendar of day buckets keyed by expiry
+ * day, kept in step with the list and with row edits ({@link Pass.Observer}); moving the date on by
+ * a day only opens the two buckets that cross a boundary, so the work is proportional to the
+ * passes that change rather than to the directory. Expired passes are dropped from the calendar,
+ * since nothing happens to them afterwards.
+ *
+ * <p>Call {@link #advance} when the date may have changed (e.g. from a timer just after midnight);
+ * the listener then runs on the calling thread. Use on the JavaFX Application Thread only.
+ */
+public final class ExpiryEngine implements Pass.Observer {
+
+    /**
+     * The outcome of moving from day {@code from} to day {@code to}. When the clock went backwards
+     * ({@code to < from}) the calendar is rebuilt and both lists are empty; re-read everything.
+     */
+    public record Transitions(long from, long to, List<Pass> enteredExpiringWindow, List<Pass> expired) {
+        public boolean isEmpty() {
+            return enteredExpiringWindow.isEmpty() && expired.isEmpty();
+        }
+    }
+
+    public interface Listener {
+        void onTransitions(Transitions transitions);
+    }
+
+    private final ObservableList<Pass> passes;
+    private final Map<Long, Set<Pass>> calendar = new HashMap<>();
+    private final List<Listener> listeners = new ArrayList<>();
+    private long today;
+
+    public ExpiryEngine(ObservableList<Pass> passes) {
+        this.passes = passes;
+        this.today = Days.today();
+        passes.forEach(this::track);
+        passes.addListener((ListChangeListener<Pass>) change -> {
+            while (change.next()) {
+                if (change.wasPermutated() || change.wasUpdated()) continue;
+                change.getRemoved().forEach(this::untrack);
+                change.getAddedSubList().forEach(this::track);
+            }
+        });
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /** Moves the calendar to today's date and tells the listeners what changed, if the date moved. */
+    public void advance() {
+        long now = Days.today();
+        if (now == today) return;
+        long from = today;
+        List<Pass> entered = new ArrayList<>();
+        List<Pass> expired = new ArrayList<>();
+        if (now < from) {
+            // clock moved backwards; passes dropped as expired may be live again
+            today = now;
+            calendar.clear();
+            passes.forEach(this::track);
+        } else {
+            while (today < now) {
+                Set<Pass> leaving = calendar.remove(today);
+                today++;
+                Set<Pass> entering = calendar.get(today + DashboardAggregates.EXPIRING_WINDOW_DAYS);
+                if (leaving != null) expired.addAll(leaving);
+                if (entering != null) entered.addAll(entering);
+            }
+            // over a jump of several days a pass can do both; it is reported as expired only
+            if (!expired.isEmpty() && !entered.isEmpty()) {
+                entered.removeAll(new HashSet<>(expired));
+            }
+        }
+        Transitions transitions = new Transitions(from, now, entered, expired);
+        for (Listener listener : listeners) {
+            listener.onTransitions(transitions);
+        }
+    }
+
+    /** How many passes are waiting to expire, e.g. for diagnostics. */
+    public int pending() {
+        int count = 0;
+        for (Set<Pass> bucket : calendar.values()) count += bucket.size();
+        return count;
+    }
+
+    /** Rows report edits here; a pass is taken out of its day before the change and filed again after it. */
+    @Override
+    public void beforeChange(Pass pass) {
+        untrack(pass);
+    }
+
+    @Override
+    public void afterChange(Pass pass) {
+        track(pass);
+    }
+
+    private void track(Pass pass) {
+        long day = pass.getValidUntilEpochDay();
+        if (day >= today) {
+            calendar.computeIfAbsent(day, d -> new HashSet<>()).add(pass);
+        }
+    }
+
+    private void untrack(Pass pass) {
+        long day = pass.getValidUntilEpochDay();
+        Set<Pass> bucket = calendar.get(day);
+        if (bucket != null && bucket.remove(pass) && bucket.isEmpty()) {
+            calendar.remove(day);
+        }
+    }
+}
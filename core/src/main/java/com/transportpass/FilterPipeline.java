@@ -0,0 +1,83 @@
+package com.transportpass;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Evaluates directory searches against a {@link PassSearchIndex} on a background worker.
+ * A newer request cancels the one in progress, and only the latest result is handed to the
+ * consumer (on {@code deliverOn}, typically the JavaFX thread), where it can be applied in one step.
+ */
+public final class FilterPipeline implements AutoCloseable {
+
+    /** A finished search: {@code matches} is {@code null} when every pass matches. */
+    public record Result(String query, PassQuery.Status status, PassSearchIndex.Matches matches, long elapsedNanos) { }
+
+    private final PassSearchIndex index;
+    private final Executor deliverOn;
+    private final Consumer<Result> consumer;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object lock = new Object();
+    private long generation;
+    private Future<?> running;
+    private Result lastDelivered;
+
+    public FilterPipeline(PassSearchIndex index, Executor deliverOn, Consumer<Result> consumer) {
+        this.index = index;
+        this.deliverOn = deliverOn;
+        this.consumer = consumer;
+    }
+
+    public void submit(String query, PassQuery.Status status) {
+        synchronized (lock) {
+            long expected = ++generation;
+            if (running != null) {
+                running.cancel(true);
+            }
+            running = worker.submit(() -> {
+                long start = System.nanoTime();
+                PassSearchIndex.Matches matches = index.search(query, status);
+                Result result = new Result(query, status, matches, System.nanoTime() - start);
+                if (isCurrent(expected)) {
+                    deliverOn.execute(() -> deliver(expected, result));
+                }
+            });
+        }
+    }
+
+    /** Forces the next result through even if it matches the previous one, e.g. after the rows changed. */
+    public void invalidate() {
+        synchronized (lock) {
+            lastDelivered = null;
+        }
+    }
+
+    private boolean isCurrent(long expected) {
+        synchronized (lock) {
+            return expected == generation && !Thread.currentThread().isInterrupted();
+        }
+    }
+
+    private void deliver(long expected, Result result) {
+        synchronized (lock) {
+            if (expected != generation) return;
+            // an unchanged match set would only make the table re-test every row for nothing
+            if (lastDelivered != null && Objects.equals(lastDelivered.matches(), result.matches())) return;
+            lastDelivered = result;
+        }
+        consumer.accept(result);
+    }
+
+    @Override
+    public void close() {
+        worker.shutdownNow();
+    }
+}
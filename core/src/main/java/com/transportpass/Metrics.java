@@ -0,0 +1,241 @@
+package com.transportpass;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named timers ({@link LatencyHistogram}s) and counters for the operations worth watching:
+ * every database call through {@link DbExecutor}, sign-ins, and the UI's filter and summary work.
+ * Recording is lock-free and allocation-free once a name exists.
+ *
+ * <p>Each metric is also published as a JMX MBean under {@code com.transportpass:type=Timer} or
+ * {@code type=Counter} (see it with JConsole or VisualVM), and when {@code metrics.csvPath} is set
+ * every metric is appended to that CSV file every {@code metrics.dumpIntervalMillis}. Figures are
+ * cumulative since start-up; compare two dumps for a rate.
+ */
+public final class Metrics implements AutoCloseable {
+
+    public static final String JMX_DOMAIN = "com.transportpass";
+
+    /** The JMX view of a timer. */
+    public interface TimerMXBean {
+        long getCount();
+
+        double getMeanMillis();
+
+        double getP50Millis();
+
+        double getP90Millis();
+
+        double getP99Millis();
+
+        double getMaxMillis();
+
+        void reset();
+    }
+
+    /** The JMX view of a counter. */
+    public interface CounterMXBean {
+        long getCount();
+    }
+
+    private static final String CSV_HEADER = "time,metric,type,count,mean_ms,p50_ms,p90_ms,p99_ms,max_ms";
+
+    private final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final List<ObjectName> registered = new ArrayList<>();
+    private final boolean jmx;
+    private final Path csv;
+    private final ScheduledExecutorService dumper;
+
+    public Metrics(AppConfig config) {
+        this.jmx = config.getBoolean("metrics.jmx", true);
+        String csvPath = config.get("metrics.csvPath", "");
+        this.csv = csvPath.isBlank() ? null : Path.of(csvPath);
+        long interval = config.getLong("metrics.dumpIntervalMillis", 60_000);
+        if (csv != null && interval > 0) {
+            dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+            dumper.scheduleWithFixedDelay(this::dumpQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            dumper = null;
+        }
+    }
+
+    /** The timer called {@code name}, created on first use. */
+    public LatencyHistogram timer(String name) {
+        LatencyHistogram timer = timers.get(name);
+        return timer != null ? timer : register(name, new LatencyHistogram());
+    }
+
+    /** Publishes a histogram kept elsewhere (e.g. {@link AuthService#loginLatency}) under {@code name}. */
+    public LatencyHistogram register(String name, LatencyHistogram histogram) {
+        LatencyHistogram existing = timers.putIfAbsent(name, histogram);
+        if (existing != null) return existing;
+        publish("Timer", name, new TimerView(histogram), TimerMXBean.class);
+        return histogram;
+    }
+
+    /** The counter called {@code name}, created on first use. */
+    public LongAdder counter(String name) {
+        LongAdder counter = counters.get(name);
+        if (counter != null) return counter;
+        LongAdder created = new LongAdder();
+        counter = counters.putIfAbsent(name, created);
+        if (counter != null) return counter;
+        publish("Counter", name, (CounterMXBean) created::sum, CounterMXBean.class);
+        return created;
+    }
+
+    /** Every metric in name order: a timer's one-line summary, or a counter's value. */
+    public Map<String, Object> values() {
+        Map<String, Object> values = new TreeMap<>();
+        timers.forEach((name, timer) -> values.put(name, timer.toString()));
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    /** {@link #values} one per line, e.g. for a diagnostics dialog. */
+    public String report() {
+        StringBuilder out = new StringBuilder();
+        values().forEach((name, value) -> out.append(name).append(": ").append(value).append('\n'));
+        return out.toString();
+    }
+
+    /** Appends one row per metric to the CSV file, writing the header first if the file is new. */
+    public void dump() throws IOException {
+        if (csv == null) return;
+        Path parent = csv.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        boolean fresh = Files.notExists(csv) || Files.size(csv) == 0;
+        String now = Instant.now().toString();
+        try (BufferedWriter out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (fresh) {
+                out.write(CSV_HEADER);
+                out.newLine();
+            }
+            for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(timers).entrySet()) {
+                LatencyHistogram timer = entry.getValue();
+                out.write(String.format(Locale.ROOT, "%s,%s,timer,%d,%.3f,%.3f,%.3f,%.3f,%.3f", now, entry.getKey(),
+                        timer.count(), timer.meanMillis(), timer.percentileMillis(50), timer.percentileMillis(90),
+                        timer.percentileMillis(99), timer.maxMillis()));
+                out.newLine();
+            }
+            for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+                out.write(now + "," + entry.getKey() + ",counter," + entry.getValue().sum() + ",,,,,");
+                out.newLine();
+            }
+        }
+    }
+
+    /** Stops the periodic dump (writing a last one) and removes the MBeans. */
+    @Override
+    public void close() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumpQuietly();
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        synchronized (registered) {
+            for (ObjectName name : registered) {
+                try {
+                    server.unregisterMBean(name);
+                } catch (JMException ignored) {
+                    // already gone
+                }
+            }
+            registered.clear();
+        }
+    }
+
+    private void dumpQuietly() {
+        try {
+            dump();
+        } catch (IOException ignored) {
+            // diagnostics must never take the application down; the next dump tries again
+        }
+    }
+
+    private <T> void publish(String type, String name, T view, Class<T> viewInterface) {
+        if (!jmx) return;
+        try {
+            StandardMBean bean = new StandardMBean(view, viewInterface, true);
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + name);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                server.registerMBean(bean, objectName);
+            } catch (InstanceAlreadyExistsException ex) {
+                // a second registry in the same JVM (tests, a restarted scene) takes the name over
+                server.unregisterMBean(objectName);
+                server.registerMBean(bean, objectName);
+            }
+            synchronized (registered) {
+                registered.add(objectName);
+            }
+        } catch (JMException ex) {
+            throw new IllegalStateException("Could not register metric " + name + " with JMX", ex);
+        }
+    }
+
+    private record TimerView(LatencyHistogram histogram) implements TimerMXBean {
+        @Override
+        public long getCount() {
+            return histogram.count();
+        }
+
+        @Override
+        public double getMeanMillis() {
+            return histogram.meanMillis();
+        }
+
+        @Override
+        public double getP50Millis() {
+            return histogram.percentileMillis(50);
+        }
+
+        @Override
+        public double getP90Millis() {
+            return histogram.percentileMillis(90);
+        }
+
+        @Override
+        public double getP99Millis() {
+            return histogram.percentileMillis(99);
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return histogram.maxMillis();
+        }
+
+        @Override
+        public void reset() {
+            histogram.reset();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.transportpass;
+
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * One transport pass row.
+ * Values are stored as plain fields (expiry as an epoch day, repeated text interned through
+ * {@link StringDictionary}); the JavaFX properties a table cell binds to are only created the
+ * first time one is requested, so rows that are never displayed stay small.
+ */
+public class Pass {
+
+    /** Notified around every change to a row, e.g. to keep counters or indexes in step. */
+    public interface Observer {
+        void beforeChange(Pass pass);
+
+        void afterChange(Pass pass);
+
+        /** Fans each notification out to {@code observers} in order. */
+        static Observer of(Observer... observers) {
+            return new Observer() {
+                @Override
+                public void beforeChange(Pass pass) {
+                    for (Observer observer : observers) observer.beforeChange(pass);
+                }
+
+                @Override
+                public void afterChange(Pass pass) {
+                    for (Observer observer : observers) observer.afterChange(pass);
+                }
+            };
+        }
+    }
+
+    private int id;
+    private String passengerName;
+    private String passType;
+    private String durationType;
+    private int durationDays;
+    private String source;
+    private String destination;
+    private long validUntilDay;
+    private Observer observer;
+    private Properties properties;
+
+    public Pass(int id, String passengerName, String passType, String durationType, int durationDays, String source, String destination, LocalDate validUntil) {
+        this.id = id;
+        this.passengerName = passengerName;
+        this.passType = StringDictionary.SHARED.intern(passType);
+        this.durationType = StringDictionary.SHARED.intern(durationType);
+        this.durationDays = durationDays;
+        this.source = StringDictionary.SHARED.intern(source);
+        this.destination = StringDictionary.SHARED.intern(destination);
+        this.validUntilDay = validUntil.toEpochDay();
+    }
+
+    public Pass(int id, String passengerName, String passType, String durationType, int durationDays, String source, String destination, String validUntil) {
+        this(id, passengerName, passType, durationType, durationDays, source, destination, LocalDate.parse(validUntil));
+    }
+
+    public void setObserver(Observer observer) {
+        this.observer = observer;
+    }
+
+    /** Copies every value except the id from {@code other}, notifying the observer once. */
+    public void updateFrom(Pass other) {
+        beforeChange();
+        passengerName = other.passengerName;
+        passType = other.passType;
+        durationType = other.durationType;
+        durationDays = other.durationDays;
+        source = other.source;
+        destination = other.destination;
+        validUntilDay = other.validUntilDay;
+        if (properties != null) {
+            properties.syncAll();
+        }
+        afterChange();
+    }
+
+    /** Whether every value except the id matches {@code other}. */
+    public boolean hasSameValues(Pass other) {
+        return durationDays == other.durationDays
+                && validUntilDay == other.validUntilDay
+                && Objects.equals(passengerName, other.passengerName)
+                && Objects.equals(passType, other.passType)
+                && Objects.equals(durationType, other.durationType)
+                && Objects.equals(source, other.source)
+                && Objects.equals(destination, other.destination);
+    }
+
+    public int getId() { return id; }
+    public void setId(int value) {
+        beforeChange();
+        id = value;
+        if (properties != null && properties.id != null) properties.id.set(value);
+        afterChange();
+    }
+    public ReadOnlyIntegerProperty idProperty() { return props().id().getReadOnlyProperty(); }
+
+    public String getPassengerName() { return passengerName; }
+    public void setPassengerName(String value) {
+        beforeChange();
+        passengerName = value;
+        if (properties != null && properties.passengerName != null) properties.passengerName.set(value);
+        afterChange();
+    }
+    public ReadOnlyStringProperty passengerNameProperty() { return props().passengerName().getReadOnlyProperty(); }
+
+    public String getPassType() { return passType; }
+    public void setPassType(String value) {
+        beforeChange();
+        passType = StringDictionary.SHARED.intern(value);
+        if (properties != null && properties.passType != null) properties.passType.set(passType);
+        afterChange();
+    }
+    public ReadOnlyStringProperty passTypeProperty() { return props().passType().getReadOnlyProperty(); }
+
+    public String getDurationType() { return durationType; }
+    public void setDurationType(String value) {
+        beforeChange();
+        durationType = StringDictionary.SHARED.intern(value);
+        if (properties != null && properties.durationType != null) properties.durationType.set(durationType);
+        afterChange();
+    }
+    public ReadOnlyStringProperty durationTypeProperty() { return props().durationType().getReadOnlyProperty(); }
+
+    public int getDurationDays() { return durationDays; }
+    public void setDurationDays(int value) {
+        beforeChange();
+        durationDays = value;
+        if (properties != null && properties.durationDays != null) properties.durationDays.set(value);
+        afterChange();
+    }
+    public ReadOnlyIntegerProperty durationDaysProperty() { return props().durationDays().getReadOnlyProperty(); }
+
+    public String getSource() { return source; }
+    public void setSource(String value) {
+        beforeChange();
+        source = StringDictionary.SHARED.intern(value);
+        if (properties != null && properties.source != null) properties.source.set(source);
+        afterChange();
+    }
+    public ReadOnlyStringProperty sourceProperty() { return props().source().getReadOnlyProperty(); }
+
+    public String getDestination() { return destination; }
+    public void setDestination(String value) {
+        beforeChange();
+        destination = StringDictionary.SHARED.intern(value);
+        if (properties != null && properties.destination != null) properties.destination.set(destination);
+        afterChange();
+    }
+    public ReadOnlyStringProperty destinationProperty() { return props().destination().getReadOnlyProperty(); }
+
+    /** Expiry date in ISO format (yyyy-MM-dd). */
+    public String getValidUntil() { return getValidUntilDate().toString(); }
+    public void setValidUntil(String value) { setValidUntilDate(LocalDate.parse(value)); }
+    public LocalDate getValidUntilDate() { return LocalDate.ofEpochDay(validUntilDay); }
+    public long getValidUntilEpochDay() { return validUntilDay; }
+    public void setValidUntilDate(LocalDate value) {
+        beforeChange();
+        validUntilDay = value.toEpochDay();
+        if (properties != null && properties.validUntil != null) properties.validUntil.set(value.toString());
+        afterChange();
+    }
+    public ReadOnlyStringProperty validUntilProperty() { return props().validUntil().getReadOnlyProperty(); }
+
+    public boolean isActive() {
+        return validUntilDay >= Days.today();
+    }
+
+    public long daysUntilExpiry() {
+        return validUntilDay - Days.today();
+    }
+
+    public String computeStatus() {
+        return describeStatus(daysUntilExpiry());
+    }
+
+    /** The status text for a pass that expires {@code days} days from today (negative once expired). */
+    public static String describeStatus(long days) {
+        if (days < 0) {
+            return "Expired (" + (-days) + " days ago)";
+        } else if (days == 0) {
+            return "Expires today";
+        } else if (days <= 5) {
+            return "Expiring in " + days + " day" + (days == 1 ? "" : "s");
+        } else {
+            return "Active (" + days + " days left)";
+        }
+    }
+
+    private void beforeChange() {
+        if (observer != null) observer.beforeChange(this);
+    }
+
+    private void afterChange() {
+        if (observer != null) observer.afterChange(this);
+    }
+
+    private Properties props() {
+        if (properties == null) {
+            properties = new Properties();
+        }
+        return properties;
+    }
+
+    /** JavaFX views of the row, created one by one as cells bind to them. */
+    private final class Properties {
+        private ReadOnlyIntegerWrapper id;
+        private ReadOnlyStringWrapper passengerName;
+        private ReadOnlyStringWrapper passType;
+        private ReadOnlyStringWrapper durationType;
+        private ReadOnlyIntegerWrapper durationDays;
+        private ReadOnlyStringWrapper source;
+        private ReadOnlyStringWrapper destination;
+        private ReadOnlyStringWrapper validUntil;
+
+        ReadOnlyIntegerWrapper id() {
+            if (id == null) id = new ReadOnlyIntegerWrapper(Pass.this, "id", Pass.this.id);
+            return id;
+        }
+
+        ReadOnlyStringWrapper passengerName() {
+            if (passengerName == null) passengerName = new ReadOnlyStringWrapper(Pass.this, "passengerName", Pass.this.passengerName);
+            return passengerName;
+        }
+
+        ReadOnlyStringWrapper passType() {
+            if (passType == null) passType = new ReadOnlyStringWrapper(Pass.this, "passType", Pass.this.passType);
+            return passType;
+        }
+
+        ReadOnlyStringWrapper durationType() {
+            if (durationType == null) durationType = new ReadOnlyStringWrapper(Pass.this, "durationType", Pass.this.durationType);
+            return durationType;
+        }
+
+        ReadOnlyIntegerWrapper durationDays() {
+            if (durationDays == null) durationDays = new ReadOnlyIntegerWrapper(Pass.this, "durationDays", Pass.this.durationDays);
+            return durationDays;
+        }
+
+        ReadOnlyStringWrapper source() {
+            if (source == null) source = new ReadOnlyStringWrapper(Pass.this, "source", Pass.this.source);
+            return source;
+        }
+
+        ReadOnlyStringWrapper destination() {
+            if (destination == null) destination = new ReadOnlyStringWrapper(Pass.this, "destination", Pass.this.destination);
+            return destination;
+        }
+
+        ReadOnlyStringWrapper validUntil() {
+            if (validUntil == null) validUntil = new ReadOnlyStringWrapper(Pass.this, "validUntil", getValidUntil());
+            return validUntil;
+        }
+
+        void syncAll() {
+            if (passengerName != null) passengerName.set(Pass.this.passengerName);
+            if (passType != null) passType.set(Pass.this.passType);
+            if (durationType != null) durationType.set(Pass.this.durationType);
+            if (durationDays != null) durationDays.set(Pass.this.durationDays);
+            if (source != null) source.set(Pass.this.source);
+            if (destination != null) destination.set(Pass.this.destination);
+            if (validUntil != null) validUntil.set(getValidUntil());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.transportpass;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Notices writes made by other clients of the same database. It polls the change sequence that
+ * every write bumps (a primary-key read of one row) and reports each new version; the listener
+ * then fetches the rows with {@link PassRepository#findChanges}. Polls run every
+ * {@code sync.pollMillis} while changes keep arriving and slow down towards
+ * {@code sync.idlePollMillis} when nothing happens.
+ *
+ * <p>Bursts are coalesced: the listener runs on the feed's own thread and the next poll waits for
+ * it, so a hundred inserts between two polls arrive as one notification.
+ *
+ * <p>Every {@code sync.tombstonePruneIntervalMillis} the feed also drops deletion records older
+ * than {@code sync.tombstoneRetentionMillis}; a client that was away longer than that reloads the
+ * whole directory instead of syncing.
+ */
+public final class PassChangeFeed implements AutoCloseable {
+
+    private final DataSource dataSource;
+    private final long pollMillis;
+    private final long idlePollMillis;
+    private final long tombstoneRetentionMillis;
+    private final long pruneIntervalNanos;
+    private long nextPruneNanos = System.nanoTime();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pass-change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long latestVersion = -1;
+    private LongConsumer listener;
+    private long delayMillis;
+
+    public PassChangeFeed(DataSource dataSource, AppConfig config) {
+        this.dataSource = dataSource;
+        this.pollMillis = Math.max(50, config.getLong("sync.pollMillis", 1_000));
+        this.idlePollMillis = Math.max(pollMillis, config.getLong("sync.idlePollMillis", 5_000));
+        this.tombstoneRetentionMillis = config.getLong("sync.tombstoneRetentionMillis", 7 * 24 * 3_600_000L);
+        this.pruneIntervalNanos = TimeUnit.MILLISECONDS.toNanos(
+                Math.max(60_000, config.getLong("sync.tombstonePruneIntervalMillis", 3_600_000)));
+    }
+
+    /**
+     * Starts polling; {@code listener} gets each version after {@code knownVersion}, on the feed
+     * thread. With -1 the first poll only records where the database is.
+     */
+    public synchronized void start(long knownVersion, LongConsumer listener) {
+        if (this.listener != null) throw new IllegalStateException("Change feed already started");
+        this.listener = listener;
+        latestVersion = knownVersion;
+        delayMillis = pollMillis;
+        poller.execute(this::poll);
+    }
+
+    /** The newest version seen so far, or -1 before the first successful poll. */
+    public long latestVersion() {
+        return latestVersion;
+    }
+
+    @Override
+    public void close() {
+        poller.shutdownNow();
+    }
+
+    private void poll() {
+        boolean changed = false;
+        try (Connection conn = dataSource.getConnection()) {
+            long version = PassChangeLog.currentVersion(conn);
+            if (version != latestVersion) {
+                // a lower version means the database was restored; listeners fall back to a full load
+                changed = latestVersion >= 0;
+                latestVersion = version;
+                if (changed) listener.accept(version);
+            }
+            if (tombstoneRetentionMillis > 0 && System.nanoTime() - nextPruneNanos >= 0) {
+                nextPruneNanos = System.nanoTime() + pruneIntervalNanos;
+                PassChangeLog.pruneTombstones(conn,
+                        new Timestamp(System.currentTimeMillis() - tombstoneRetentionMillis));
+            }
+        } catch (SQLException | RuntimeException ex) {
+            // unreachable database: keep the last version and try again, backing off as when idle
+        }
+        delayMillis = changed ? pollMillis : Math.min(idlePollMillis, delayMillis * 2);
+        if (!poller.isShutdown()) {
+            poller.schedule(this::poll, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
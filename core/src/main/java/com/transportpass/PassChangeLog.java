@@ -0,0 +1,114 @@
+package com.transportpass;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+/**
+ * The change sequence behind incremental directory sync. Every write to transport_pass takes the
+ * next version from {@code pass_change_sequence} inside its own transaction and stamps it on the
+ * rows it touches ({@code row_version}), or on a {@code pass_tombstone} row for a delete.
+ *
+ * <p>Taking a version locks the sequence row until the writer commits, so versions become visible
+ * in the order they were handed out: a reader that sees version {@code v} committed has also seen
+ * every change numbered below it, and can safely resume from {@code v} next time. The price is
+ * that writers, bulk-import chunks included, commit one at a time; each holds the row only for its
+ * own short transaction.
+ *
+ * <p>Tombstones are kept for a retention period and then pruned. {@code pruned_version} records the
+ * newest version dropped, so a reader resuming from below it is told to reload everything instead
+ * of silently missing deletions.
+ */
+final class PassChangeLog {
+
+    private static final String NEXT_SQL = "UPDATE pass_change_sequence SET last_version = last_version + 1 WHERE id = 1";
+    private static final String CURRENT_SQL = "SELECT last_version FROM pass_change_sequence WHERE id = 1";
+    private static final String PRUNED_SQL = "SELECT pruned_version FROM pass_change_sequence WHERE id = 1";
+    private static final String PRUNE_HORIZON_SQL = "SELECT MAX(row_version) FROM pass_tombstone WHERE deleted_at < ?";
+    private static final String PRUNE_SQL = "DELETE FROM pass_tombstone WHERE row_version <= ?";
+    private static final String RAISE_PRUNED_SQL =
+            "UPDATE pass_change_sequence SET pruned_version = ? WHERE id = 1 AND pruned_version < ?";
+    private static final String CLEAR_TOMBSTONE_SQL = "DELETE FROM pass_tombstone WHERE pass_id = ?";
+    private static final String TOMBSTONE_SQL = "INSERT INTO pass_tombstone (pass_id, row_version) VALUES (?,?)";
+
+    private PassChangeLog() {
+    }
+
+    /** Claims the next version; {@code conn} must be in a transaction that also makes the change. */
+    static long nextVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (stmt.executeUpdate(NEXT_SQL) != 1) {
+                throw new SQLException("pass_change_sequence is empty; run the schema migrations");
+            }
+        }
+        return currentVersion(conn);
+    }
+
+    /** The last committed version (or, inside a writing transaction, the one it claimed). */
+    static long currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(CURRENT_SQL)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /** The newest version whose tombstones were pruned; changes since a lower version are incomplete. */
+    static long prunedVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(PRUNED_SQL)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Drops tombstones recorded before {@code cutoff} and raises {@code pruned_version} to match, in
+     * one transaction on a connection in auto-commit mode. Returns how many tombstones went.
+     */
+    static int pruneTombstones(Connection conn, Timestamp cutoff) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            long horizon;
+            try (PreparedStatement ps = conn.prepareStatement(PRUNE_HORIZON_SQL)) {
+                ps.setTimestamp(1, cutoff);
+                try (ResultSet rs = ps.executeQuery()) {
+                    horizon = rs.next() ? rs.getLong(1) : 0;
+                }
+            }
+            if (horizon <= 0) {
+                conn.rollback();
+                return 0;
+            }
+            int pruned;
+            try (PreparedStatement delete = conn.prepareStatement(PRUNE_SQL);
+                 PreparedStatement raise = conn.prepareStatement(RAISE_PRUNED_SQL)) {
+                delete.setLong(1, horizon);
+                pruned = delete.executeUpdate();
+                raise.setLong(1, horizon);
+                raise.setLong(2, horizon);
+                raise.executeUpdate();
+            }
+            conn.commit();
+            return pruned;
+        } catch (SQLException | RuntimeException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /** Records that pass {@code id} was deleted at {@code version}. */
+    static void recordDeletion(Connection conn, int id, long version) throws SQLException {
+        try (PreparedStatement clear = conn.prepareStatement(CLEAR_TOMBSTONE_SQL);
+             PreparedStatement insert = conn.prepareStatement(TOMBSTONE_SQL)) {
+            clear.setInt(1, id);
+            clear.executeUpdate();
+            insert.setInt(1, id);
+            insert.setLong(2, version);
+            insert.executeUpdate();
+        }
+    }
+}
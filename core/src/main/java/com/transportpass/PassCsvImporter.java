@@ -0,0 +1,352 @@
+package com.transportpass;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Streams passes from a CSV file into the database. Rows are checked with {@link PassRules}, then
+ * written {@code import.chunkSize} at a time as one multi-row INSERT in its own transaction. Rows
+ * that fail validation, or that the database refuses, go to a reject file next to the input with
+ * the reason appended, and the rest of the file carries on.
+ *
+ * <p>The header names the columns (any order): passenger_name, pass_type, duration_type, source,
+ * destination and optionally valid_until (yyyy-MM-dd); without it the expiry counts from today.
+ */
+public final class PassCsvImporter {
+
+    /** Where an import has got to; {@code bytesRead} against {@code totalBytes} gives the fraction done. */
+    public record Progress(long rowsRead, long imported, long rejected, long bytesRead, long totalBytes) {
+        public double fraction() {
+            return totalBytes <= 0 ? 0 : Math.min(1.0, (double) bytesRead / totalBytes);
+        }
+    }
+
+    public record Result(long imported, long rejected, long elapsedNanos, Path rejectFile) {
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : imported * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO transport_pass (passenger_name, pass_type, duration_type, duration_days, source, destination, valid_until, row_version, updated_at) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?,?,?,?,?,?,?,?,CURRENT_TIMESTAMP)";
+    private static final int PARAMETERS_PER_ROW = (int) ROW_PLACEHOLDERS.chars().filter(c -> c == '?').count();
+    // MySQL allows 65535 placeholders per statement
+    private static final int MAX_PLACEHOLDERS = 65_535;
+    private static final List<String> REQUIRED = List.of("passenger_name", "pass_type", "duration_type", "source", "destination");
+
+    private final DataSource dataSource;
+    private final DbExecutor executor;
+    private final int chunkSize;
+    private volatile Runnable writeListener = () -> { };
+
+    public PassCsvImporter(DataSource dataSource, DbExecutor executor, AppConfig config) {
+        this.dataSource = dataSource;
+        this.executor = executor;
+        this.chunkSize = chunkSize(config.getInt("import.chunkSize", 1_000));
+    }
+
+    /** {@code requested} rows per {@link #insert}, capped so one statement stays within the placeholder limit. */
+    static int chunkSize(int requested) {
+        return Math.max(1, Math.min(requested, MAX_PLACEHOLDERS / PARAMETERS_PER_ROW));
+    }
+
+    /**
+     * Imports {@code csv}; {@code progress} is called from the database thread after every chunk.
+     * Cancelling the returned future stops after the chunk in flight; chunks already committed stay.
+     */
+    public CompletableFuture<Result> importFile(Path csv, Consumer<Progress> progress) {
+        return executor.submitCancellable("pass.import", () -> {
+            try {
+                return run(csv, progress);
+            } catch (IOException ex) {
+                throw new SQLException("Could not read " + csv.getFileName() + ": " + ex.getMessage(), ex);
+            }
+        });
+    }
+
+    /** Runs on the database thread after each committed chunk, e.g. to drop cached dashboard figures. */
+    public void setWriteListener(Runnable listener) {
+        this.writeListener = listener == null ? () -> { } : listener;
+    }
+
+    public static Path rejectFileFor(Path csv) {
+        String name = csv.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return csv.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".rejects.csv");
+    }
+
+    private Result run(Path csv, Consumer<Progress> progress) throws IOException, SQLException {
+        long start = System.nanoTime();
+        long totalBytes = Files.size(csv);
+        Path rejectPath = rejectFileFor(csv);
+        LocalDate today = LocalDate.now();
+        try (CountingInputStream in = new CountingInputStream(Files.newInputStream(csv));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+             Rejects rejects = new Rejects(rejectPath);
+             Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            CsvRecord header = readRecord(reader);
+            if (header == null) {
+                return new Result(0, 0, System.nanoTime() - start, null);
+            }
+            Map<String, Integer> columns = columnIndex(header.fields());
+            rejects.header(header.raw());
+
+            List<Pass> chunk = new ArrayList<>(chunkSize);
+            List<CsvRecord> chunkSources = new ArrayList<>(chunkSize);
+            long rowsRead = 0;
+            long imported = 0;
+            CsvRecord record;
+            while ((record = readRecord(reader)) != null) {
+                if (record.raw().isBlank()) continue;
+                rowsRead++;
+                Object parsed = toPass(record.fields(), columns, today);
+                if (parsed instanceof Pass pass) {
+                    chunk.add(pass);
+                    chunkSources.add(record);
+                } else {
+                    rejects.add(record.raw(), (String) parsed);
+                }
+                if (chunk.size() == chunkSize) {
+                    imported += writeChunk(conn, chunk, chunkSources, rejects);
+                    progress.accept(new Progress(rowsRead, imported, rejects.count(), in.count(), totalBytes));
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new SQLException("Import cancelled after " + imported + " rows");
+                    }
+                }
+            }
+            imported += writeChunk(conn, chunk, chunkSources, rejects);
+            progress.accept(new Progress(rowsRead, imported, rejects.count(), totalBytes, totalBytes));
+            return new Result(imported, rejects.count(), System.nanoTime() - start, rejects.count() > 0 ? rejectPath : null);
+        }
+    }
+
+    /** Writes and commits one chunk; if the database refuses it, rows are retried one by one so only the bad ones are rejected. */
+    private int writeChunk(Connection conn, List<Pass> chunk, List<CsvRecord> sources, Rejects rejects) throws SQLException, IOException {
+        if (chunk.isEmpty()) return 0;
+        int written;
+        try {
+            insert(conn, chunk);
+            conn.commit();
+            written = chunk.size();
+        } catch (SQLException ex) {
+            conn.rollback();
+            written = 0;
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    insert(conn, List.of(chunk.get(i)));
+                    conn.commit();
+                    written++;
+                } catch (SQLException rowEx) {
+                    conn.rollback();
+                    rejects.add(sources.get(i).raw(), rowEx.getMessage());
+                }
+            }
+        }
+        chunk.clear();
+        sources.clear();
+        if (written > 0) {
+            writeListener.run();
+        }
+        return written;
+    }
+
+    /** One multi-row INSERT of {@code rows}, all stamped with one change version; the caller owns the transaction. */
+    static void insert(Connection conn, List<Pass> rows) throws SQLException {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows.size() * (ROW_PLACEHOLDERS.length() + 1))
+                .append(INSERT_PREFIX);
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "" : ",").append(ROW_PLACEHOLDERS);
+        }
+        // full chunks share one SQL string, so the pool's statement cache keeps it prepared
+        long version = PassChangeLog.nextVersion(conn);
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int p = 1;
+            for (Pass pass : rows) {
+                ps.setString(p++, pass.getPassengerName());
+                ps.setString(p++, pass.getPassType());
+                ps.setString(p++, pass.getDurationType());
+                ps.setInt(p++, pass.getDurationDays());
+                ps.setString(p++, pass.getSource());
+                ps.setString(p++, pass.getDestination());
+                ps.setDate(p++, java.sql.Date.valueOf(pass.getValidUntilDate()));
+                ps.setLong(p++, version);
+            }
+            ps.executeUpdate();
+        }
+    }
+
+    private static Map<String, Integer> columnIndex(List<String> header) throws SQLException {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : REQUIRED) {
+            if (!columns.containsKey(required)) {
+                throw new SQLException("CSV header is missing the " + required + " column");
+            }
+        }
+        return columns;
+    }
+
+    /** The pass described by {@code fields}, or the reason it was rejected. */
+    private static Object toPass(List<String> fields, Map<String, Integer> columns, LocalDate today) {
+        String name = field(fields, columns, "passenger_name");
+        String type = field(fields, columns, "pass_type");
+        String duration = field(fields, columns, "duration_type");
+        String source = field(fields, columns, "source");
+        String destination = field(fields, columns, "destination");
+        Optional<String> problem = PassRules.validate(name, type, duration, source, destination);
+        if (problem.isPresent()) {
+            return problem.get();
+        }
+        Pass pass = PassRules.newPass(name, type, duration, source, destination, today);
+        String validUntil = field(fields, columns, "valid_until");
+        if (validUntil != null && !validUntil.isBlank()) {
+            try {
+                pass.setValidUntilDate(LocalDate.parse(validUntil.trim()));
+            } catch (DateTimeParseException ex) {
+                return "Invalid valid_until date: " + validUntil.trim() + ".";
+            }
+        }
+        return pass;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index == null || index >= fields.size() ? null : fields.get(index);
+    }
+
+    // --- CSV reading ---
+    private record CsvRecord(String raw, List<String> fields) { }
+
+    /** Reads one RFC 4180 record; quoted fields may contain commas, doubled quotes and line breaks. */
+    private static CsvRecord readRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) return null;
+        StringBuilder raw = new StringBuilder(line);
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) break;
+                // the quoted field continues on the next line
+                line = reader.readLine();
+                if (line == null) break;
+                raw.append('\n').append(line);
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c == '"') {
+                    if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return new CsvRecord(raw.toString(), fields);
+    }
+
+    /** Rejected lines as they appeared in the input, with a reject_reason column; the file is only created if needed. */
+    private static final class Rejects implements AutoCloseable {
+        private final Path path;
+        private String header = "";
+        private BufferedWriter writer;
+        private long count;
+
+        Rejects(Path path) throws IOException {
+            this.path = path;
+            Files.deleteIfExists(path);
+        }
+
+        void header(String header) {
+            this.header = header;
+        }
+
+        void add(String raw, String reason) throws IOException {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+                writer.write(header + ",reject_reason");
+                writer.newLine();
+            }
+            writer.write(raw + ",\"" + String.valueOf(reason).replace("\"", "\"\"") + "\"");
+            writer.newLine();
+            count++;
+        }
+
+        long count() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) writer.close();
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        long count() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.transportpass;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.LongConsumer;
+
+/**
+ * Synthetic passes for load testing. Types, durations and routes follow the form's choices with
+ * commuter-like weights (monthly train and bus passes between the big interchanges dominate), and
+ * each pass was issued on a day in the year before {@code asOf}, so the data holds the usual mix
+ * of long-expired, expiring and active passes. The same seed and as-of date always give the same rows.
+ *
+ * <pre>java com.transportpass.PassDataGenerator --rows 1000000 [--seed 42] [--as-of 2025-01-31] (--csv passes.csv | --db)</pre>
+ */
+public final class PassDataGenerator {
+
+    /** Cumulative weights, in the order of {@link PassRules#PASS_TYPES}: Bus, Metro, Train. */
+    private static final int[] TYPE_WEIGHTS = cumulative(40, 20, 40);
+    /** In the order of {@link PassRules#DURATION_TYPES}: Daily through Yearly. */
+    private static final int[] DURATION_WEIGHTS = cumulative(8, 17, 50, 17, 8);
+    /** In the order of {@link PassRules#STATIONS}; interchanges and terminals get the most traffic. */
+    private static final int[] STATION_WEIGHTS = cumulative(
+            12, 9, 6, 8, 2, 12, 4, 2, 8, 3, 3, 4, 5, 2, 3, 7, 6, 4, 7, 5, 9, 3, 3, 4);
+    private static final int ISSUE_WINDOW_DAYS = 365;
+    private static final String[] FIRST_NAMES = {
+            "Aarav", "Aditi", "Amit", "Ananya", "Arjun", "Asha", "Deepak", "Divya", "Farhan", "Gaurav",
+            "Isha", "Kavya", "Kiran", "Manoj", "Meera", "Neha", "Nikhil", "Pooja", "Priya", "Rahul",
+            "Rajesh", "Ravi", "Rohan", "Sanjay", "Sara", "Shreya", "Sunil", "Tanvi", "Vikram", "Zoya"};
+    private static final String[] LAST_NAMES = {
+            "Bhatt", "Chavan", "D'Souza", "Desai", "Fernandes", "Gupta", "Iyer", "Jain", "Joshi", "Kadam",
+            "Khan", "Kulkarni", "Mehta", "Nair", "Naik", "Patel", "Patil", "Pillai", "Rao", "Sawant",
+            "Shah", "Shaikh", "Sharma", "Shinde", "Singh"};
+
+    private final SplittableRandom random;
+    private final LocalDate asOf;
+
+    public PassDataGenerator(long seed, LocalDate asOf) {
+        this.random = new SplittableRandom(seed);
+        this.asOf = asOf;
+    }
+
+    /** The next pass, unsaved (id 0). */
+    public Pass next() {
+        String passType = PassRules.PASS_TYPES.get(pick(TYPE_WEIGHTS));
+        String duration = PassRules.DURATION_TYPES.get(pick(DURATION_WEIGHTS));
+        int source = pick(STATION_WEIGHTS);
+        int destination = pick(STATION_WEIGHTS);
+        while (destination == source) {
+            destination = pick(STATION_WEIGHTS);
+        }
+        String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        LocalDate issuedOn = asOf.minusDays(random.nextInt(ISSUE_WINDOW_DAYS));
+        return PassRules.newPass(name, passType, duration,
+                PassRules.STATIONS.get(source), PassRules.STATIONS.get(destination), issuedOn);
+    }
+
+    /** Writes {@code rows} passes in the layout {@link PassCsvImporter} reads, with valid_until filled in. */
+    public void writeCsv(Path file, long rows, LongConsumer progress) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("passenger_name,pass_type,duration_type,source,destination,valid_until\n");
+            StringBuilder line = new StringBuilder(128);
+            for (long row = 1; row <= rows; row++) {
+                Pass pass = next();
+                line.setLength(0);
+                csvField(line, pass.getPassengerName()).append(',');
+                csvField(line, pass.getPassType()).append(',');
+                csvField(line, pass.getDurationType()).append(',');
+                csvField(line, pass.getSource()).append(',');
+                csvField(line, pass.getDestination()).append(',');
+                line.append(pass.getValidUntil()).append('\n');
+                out.append(line);
+                if (row % 100_000 == 0) progress.accept(row);
+            }
+        }
+        progress.accept(rows);
+    }
+
+    /**
+     * Inserts {@code rows} passes, {@code batchSize} rows per multi-row INSERT and transaction
+     * (capped like the importer's chunks, see {@link PassCsvImporter#chunkSize}).
+     */
+    public void insert(DataSource dataSource, long rows, int batchSize, LongConsumer progress) throws SQLException {
+        int chunkSize = PassCsvImporter.chunkSize(batchSize);
+        List<Pass> batch = new ArrayList<>(chunkSize);
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (long row = 1; row <= rows; row++) {
+                    batch.add(next());
+                    if (batch.size() == chunkSize || row == rows) {
+                        PassCsvImporter.insert(conn, batch);
+                        conn.commit();
+                        batch.clear();
+                        progress.accept(row);
+                    }
+                }
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private int pick(int[] cumulativeWeights) {
+        int ticket = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (cumulativeWeights[i] <= ticket) i++;
+        return i;
+    }
+
+    private static int[] cumulative(int... weights) {
+        int[] sums = new int[weights.length];
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            sums[i] = total;
+        }
+        return sums;
+    }
+
+    private static StringBuilder csvField(StringBuilder out, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return out.append(value);
+        }
+        return out.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    public static void main(String[] args) throws Exception {
+        long rows = 1_000_000;
+        long seed = 42;
+        LocalDate asOf = LocalDate.now();
+        Path csv = null;
+        boolean toDatabase = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rows" -> rows = Long.parseLong(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--as-of" -> asOf = LocalDate.parse(args[++i]);
+                case "--csv" -> csv = Path.of(args[++i]);
+                case "--db" -> toDatabase = true;
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if ((csv == null) == !toDatabase) {
+            throw new IllegalArgumentException("Give exactly one of --csv <file> or --db");
+        }
+
+        PassDataGenerator generator = new PassDataGenerator(seed, asOf);
+        long total = rows;
+        long start = System.nanoTime();
+        long[] reported = {0};
+        LongConsumer progress = row -> {
+            if (row - reported[0] >= 100_000 || row == total) {
+                reported[0] = row;
+                System.out.printf("\r%,d / %,d passes", row, total);
+            }
+        };
+        if (csv != null) {
+            generator.writeCsv(csv, rows, progress);
+        } else {
+            AppConfig config = AppConfig.load();
+            StorageBackend.fromConfig(config).loadDriver(config);
+            try (ConnectionPool pool = new ConnectionPool(config)) {
+                new SchemaMigrator(pool).migrate();
+                generator.insert(pool, rows, config.getInt("import.chunkSize", 1_000), progress);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%nGenerated %,d passes in %.1f s (%,.0f rows/s)%n", rows, seconds, rows / seconds);
+    }
+}
@@ -0,0 +1,479 @@
+package com.transportpass;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Streams the rows matching a {@link PassQuery} straight from a forward-only cursor into a file, so
+ * memory use stays flat however many rows are exported. Two formats are written: CSV (the columns
+ * {@link PassCsvImporter} reads, plus id) and a compact columnar binary, see {@link Format#COLUMNAR}.
+ */
+public final class PassExporter {
+
+    public enum Format {
+        CSV,
+        /**
+         * {@code TPCOL1}: row groups of up to {@code export.rowGroupSize} rows, each column stored
+         * contiguously behind its byte length. Ids and expiry days are delta varints; the repeated
+         * text columns are dictionary codes shared across the file; names are length-prefixed UTF-8.
+         * Read back with {@link #readColumnar}.
+         */
+        COLUMNAR;
+
+        public static Format forFile(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".csv") ? CSV : COLUMNAR;
+        }
+    }
+
+    public record Progress(long rows, long bytes) { }
+
+    public record Result(long rows, long bytes, long elapsedNanos) {
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        public double megabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytes * 1_000.0 / elapsedNanos;
+        }
+    }
+
+    private static final byte[] MAGIC = "TPCOL1\n\0".getBytes(StandardCharsets.US_ASCII);
+    private static final String CSV_HEADER = "id,passenger_name,pass_type,duration_type,duration_days,source,destination,valid_until\n";
+    private static final int PROGRESS_EVERY = 50_000;
+
+    private final DataSource dataSource;
+    private final DbExecutor executor;
+    private final int fetchSize;
+    private final int rowGroupSize;
+
+    public PassExporter(DataSource dataSource, DbExecutor executor, AppConfig config) {
+        this.dataSource = dataSource;
+        this.executor = executor;
+        this.fetchSize = config.getInt("export.fetchSize", 1_000);
+        this.rowGroupSize = Math.max(1, config.getInt("export.rowGroupSize", 65_536));
+    }
+
+    /** Writes every pass matching {@code query}, in its sort order; cancelling the future stops the export. */
+    public CompletableFuture<Result> export(PassQuery query, Path target, Format format, Consumer<Progress> progress) {
+        return executor.submitCancellable("pass.export", () -> {
+            try {
+                return run(query, target, format, progress);
+            } catch (IOException ex) {
+                throw new SQLException("Could not write " + target.getFileName() + ": " + ex.getMessage(), ex);
+            }
+        });
+    }
+
+    private Result run(PassQuery query, Path target, Format format, Consumer<Progress> progress) throws SQLException, IOException {
+        long start = System.nanoTime();
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT id, passenger_name, pass_type, duration_type, duration_days, source, destination, valid_until"
+                + " FROM transport_pass" + query.where(params, LocalDate.now()) + query.orderBy();
+        try (Connection conn = dataSource.getConnection();
+             ChannelSink out = new ChannelSink(FileChannel.open(target, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            // most drivers only honour the fetch size inside a transaction
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(streamingFetchSize(conn, fetchSize));
+                for (int i = 0; i < params.size(); i++) {
+                    ps.setObject(i + 1, params.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    RowWriter writer = format == Format.CSV ? new CsvWriter(out) : new ColumnarWriter(out, rowGroupSize);
+                    long rows = 0;
+                    while (rs.next()) {
+                        writer.row(rs);
+                        if (++rows % PROGRESS_EVERY == 0) {
+                            progress.accept(new Progress(rows, out.position()));
+                            if (Thread.currentThread().isInterrupted()) {
+                                throw new SQLException("Export cancelled after " + rows + " rows");
+                            }
+                        }
+                    }
+                    writer.finish();
+                    out.flush();
+                    progress.accept(new Progress(rows, out.position()));
+                    return new Result(rows, out.position(), System.nanoTime() - start);
+                }
+            } finally {
+                conn.rollback();
+            }
+        }
+    }
+
+    /**
+     * Connector/J buffers a whole result set unless the URL enables cursor fetch; its row-by-row
+     * streaming mode (fetch size {@code Integer.MIN_VALUE}) is the constant-memory fallback.
+     */
+    static int streamingFetchSize(Connection conn, int fetchSize) throws SQLException {
+        String url = String.valueOf(conn.getMetaData().getURL());
+        if (url.startsWith("jdbc:mysql:") && !url.toLowerCase(Locale.ROOT).contains("usecursorfetch=true")) {
+            return Integer.MIN_VALUE;
+        }
+        return fetchSize;
+    }
+
+    private interface RowWriter {
+        void row(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    // --- CSV ---
+    private static final class CsvWriter implements RowWriter {
+        private final ChannelSink out;
+        private final StringBuilder line = new StringBuilder(256);
+
+        CsvWriter(ChannelSink out) throws IOException {
+            this.out = out;
+            out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            line.setLength(0);
+            line.append(rs.getInt(1)).append(',');
+            quote(rs.getString(2)).append(',');
+            quote(rs.getString(3)).append(',');
+            quote(rs.getString(4)).append(',');
+            line.append(rs.getInt(5)).append(',');
+            quote(rs.getString(6)).append(',');
+            quote(rs.getString(7)).append(',');
+            line.append(rs.getDate(8).toLocalDate()).append('\n');
+            out.writeUtf8(line);
+        }
+
+        private StringBuilder quote(String value) {
+            if (value == null) return line;
+            boolean needsQuotes = false;
+            for (int i = 0; i < value.length() && !needsQuotes; i++) {
+                char c = value.charAt(i);
+                needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!needsQuotes) return line.append(value);
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') line.append('"');
+                line.append(c);
+            }
+            return line.append('"');
+        }
+
+        @Override
+        public void finish() {
+        }
+    }
+
+    // --- columnar ---
+    private static final String[] COLUMNS = {
+            "id", "passenger_name", "pass_type", "duration_type", "duration_days", "source", "destination", "valid_until"};
+
+    private static final class ColumnarWriter implements RowWriter {
+        private final ChannelSink out;
+        private final int rowGroupSize;
+        private final ByteSink[] columns = new ByteSink[COLUMNS.length];
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private int groupRows;
+        private int lastId;
+        private long lastDay;
+
+        ColumnarWriter(ChannelSink out, int rowGroupSize) throws IOException {
+            this.out = out;
+            this.rowGroupSize = rowGroupSize;
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = new ByteSink();
+            }
+            ByteSink header = new ByteSink();
+            header.bytes(MAGIC);
+            header.varint(COLUMNS.length);
+            for (String column : COLUMNS) {
+                header.text(column);
+            }
+            out.write(header.buffer, 0, header.size);
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            int id = rs.getInt(1);
+            columns[0].zigzag(id - lastId);
+            lastId = id;
+            columns[1].text(rs.getString(2));
+            dictionaryCode(columns[2], rs.getString(3));
+            dictionaryCode(columns[3], rs.getString(4));
+            columns[4].varint(rs.getInt(5));
+            dictionaryCode(columns[5], rs.getString(6));
+            dictionaryCode(columns[6], rs.getString(7));
+            long day = rs.getDate(8).toLocalDate().toEpochDay();
+            columns[7].zigzag(day - lastDay);
+            lastDay = day;
+            if (++groupRows == rowGroupSize) {
+                flushGroup();
+            }
+        }
+
+        /** 0 introduces a new value (stored inline once), 1 is null, n ≥ 2 refers to dictionary entry n - 2. */
+        private void dictionaryCode(ByteSink column, String value) {
+            if (value == null) {
+                column.varint(1);
+                return;
+            }
+            Integer code = dictionary.get(value);
+            if (code != null) {
+                column.varint(code + 2);
+                return;
+            }
+            dictionary.put(value, dictionary.size());
+            column.varint(0);
+            column.text(value);
+        }
+
+        private void flushGroup() throws IOException {
+            if (groupRows == 0) return;
+            ByteSink groupHeader = new ByteSink();
+            groupHeader.varint(groupRows);
+            for (ByteSink column : columns) {
+                groupHeader.varint(column.size);
+            }
+            out.write(groupHeader.buffer, 0, groupHeader.size);
+            for (ByteSink column : columns) {
+                out.write(column.buffer, 0, column.size);
+                column.size = 0;
+            }
+            groupRows = 0;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            flushGroup();
+            // an empty row group marks the end of the file
+            out.write(new byte[] {0}, 0, 1);
+        }
+    }
+
+    /** Reads a {@link Format#COLUMNAR} file written by this class, one pass at a time in file order. */
+    public static long readColumnar(Path file, Consumer<Pass> consumer) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            byte[] magic = in.readNBytes(MAGIC.length);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException(file.getFileName() + " is not a pass export");
+            }
+            int columnCount = (int) readVarint(in);
+            for (int i = 0; i < columnCount; i++) {
+                in.readNBytes((int) readVarint(in) - 1);
+            }
+            List<String> dictionary = new ArrayList<>();
+            long rows = 0;
+            int lastId = 0;
+            long lastDay = 0;
+            while (true) {
+                int groupRows = (int) readVarint(in);
+                if (groupRows == 0) return rows;
+                int[] sizes = new int[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    sizes[i] = (int) readVarint(in);
+                }
+                // one row group is held at a time
+                ByteBuffer[] columns = new ByteBuffer[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    columns[i] = ByteBuffer.wrap(in.readNBytes(sizes[i]));
+                }
+                for (int r = 0; r < groupRows; r++) {
+                    lastId += (int) unzigzag(readVarint(columns[0]));
+                    String name = readText(columns[1]);
+                    String type = readDictionary(columns[2], dictionary);
+                    String duration = readDictionary(columns[3], dictionary);
+                    int days = (int) readVarint(columns[4]);
+                    String source = readDictionary(columns[5], dictionary);
+                    String destination = readDictionary(columns[6], dictionary);
+                    lastDay += unzigzag(readVarint(columns[7]));
+                    consumer.accept(new Pass(lastId, name, type, duration, days, source, destination, LocalDate.ofEpochDay(lastDay)));
+                    rows++;
+                }
+            }
+        }
+    }
+
+    private static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException("Truncated pass export");
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+    }
+
+    private static String readDictionary(ByteBuffer column, List<String> dictionary) {
+        int code = (int) readVarint(column);
+        if (code == 1) return null;
+        if (code >= 2) return dictionary.get(code - 2);
+        String value = readText(column);
+        dictionary.add(value);
+        return value;
+    }
+
+    private static String readText(ByteBuffer data) {
+        int length = (int) readVarint(data);
+        if (length == 0) return null;
+        byte[] bytes = new byte[length - 1];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long readVarint(ByteBuffer data) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /** Growable byte array reused for each row group's columns. */
+    private static final class ByteSink {
+        private byte[] buffer = new byte[4096];
+        private int size;
+
+        void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void zigzag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        /** Length + 1 followed by UTF-8 bytes; a length of 0 is null. */
+        void text(String value) {
+            if (value == null) {
+                varint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1L);
+            bytes(bytes);
+        }
+
+        void bytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(size + extra, buffer.length * 2));
+            }
+        }
+    }
+
+    /** Buffered writes to a file channel through one reusable direct buffer. */
+    private static final class ChannelSink implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        private long written;
+
+        ChannelSink(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void write(byte[] bytes) throws IOException {
+            write(bytes, 0, bytes.length);
+        }
+
+        void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!buffer.hasRemaining()) drain();
+                int chunk = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        /** Encodes ASCII directly; anything else goes through the UTF-8 encoder. */
+        void writeUtf8(CharSequence text) throws IOException {
+            int length = text.length();
+            if (buffer.remaining() < length * 3) drain();
+            if (buffer.remaining() < length * 3) {
+                write(text.toString().getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    buffer.put((byte) c);
+                } else if (c < 0x800) {
+                    buffer.put((byte) (0xC0 | (c >> 6)));
+                    buffer.put((byte) (0x80 | (c & 0x3F)));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, text.charAt(++i));
+                    buffer.put((byte) (0xF0 | (cp >> 18)));
+                    buffer.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                    buffer.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                    buffer.put((byte) (0x80 | (cp & 0x3F)));
+                } else if (Character.isSurrogate(c)) {
+                    buffer.put((byte) '?');
+                } else {
+                    buffer.put((byte) (0xE0 | (c >> 12)));
+                    buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    buffer.put((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+        }
+
+        long position() {
+            return written + buffer.position();
+        }
+
+        void flush() throws IOException {
+            drain();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,446 @@
+package com.transportpass;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Headless HTTP front end for ticket counters and gates, started with {@code --server}. It uses the
+ * same pool, repositories and validation as the desktop app, serves each request on its own virtual
+ * thread, and never touches the JavaFX toolkit.
+ *
+ * <pre>
+ * GET    /passes?search=&amp;status=&amp;sort=&amp;order=&amp;offset=&amp;limit=   list (sorted, filtered, paged)
+ * GET    /passes/count?search=&amp;status=                            matching row count
+ * GET    /passes/{id}                                           one pass
+ * POST   /passes                                                create from a JSON body
+ * PUT    /passes/{id}                                           replace from a JSON body
+ * DELETE /passes/{id}                                           remove
+ * GET    /validate?id=&amp;source=&amp;destination=                       gate check for today
+ * GET    /metrics                                               dashboard figures
+ * GET    /stats                                                 pool, sign-in and timing statistics
+ * GET    /health                                                liveness: {"status":"up"}
+ * POST   /login                                                 {"username","password"} to a session token
+ * POST   /logout                                                ends the session of the presented token
+ * </pre>
+ *
+ * While {@code server.requireAuth} is on, every route except /health and /login needs an
+ * {@code Authorization: Bearer <token>} header.
+ */
+public final class PassHttpServer implements AutoCloseable {
+
+    private static final System.Logger LOG = System.getLogger(PassHttpServer.class.getName());
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int MAX_PAGE_SIZE = 1_000;
+
+    private final ConnectionPool pool;
+    private final DbExecutor db;
+    private final PassRepository passes;
+    private final PassMetricsRepository metrics;
+    private final PassValidationIndex validation;
+    private final PassChangeFeed changeFeed;
+    private final Metrics metricsRegistry;
+    /** Change version the validation index is current to; only the change feed thread moves it on. */
+    private long syncedVersion;
+    private final AuthService auth;
+    private final boolean requireAuth;
+    private final HttpServer server;
+    private final ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor();
+
+    private PassHttpServer(AppConfig config) throws IOException, SQLException {
+        pool = new ConnectionPool(config);
+        metricsRegistry = new Metrics(config);
+        db = new DbExecutor();
+        db.setMetrics(metricsRegistry);
+        passes = new PassRepository(pool, db);
+        metrics = new PassMetricsRepository(pool, db, config);
+        passes.addWriteListener(PassRepository.WriteListener.onAnyWrite(metrics::invalidate));
+        new SchemaMigrator(pool).migrate();
+        validation = new PassValidationIndex(passes, pool, db, config);
+        syncedVersion = passes.changeVersion().join();
+        validation.warm().whenComplete((rows, ex) -> {
+            if (ex != null) {
+                LOG.log(System.Logger.Level.WARNING, "Validation index not warmed; lookups will hit the database", ex);
+            } else {
+                LOG.log(System.Logger.Level.INFO, "Validation index warmed with {0} passes", rows);
+            }
+        });
+
+        changeFeed = new PassChangeFeed(pool, config);
+        changeFeed.start(syncedVersion, version -> applyRemoteChanges());
+
+        auth = new AuthService(new UserRepository(pool, db), config);
+        metricsRegistry.register("auth.login", auth.loginLatency());
+        requireAuth = config.getBoolean("server.requireAuth", true);
+
+        InetSocketAddress address = new InetSocketAddress(config.get("server.host", "0.0.0.0"), config.getInt("server.port", 8080));
+        server = HttpServer.create(address, config.getInt("server.backlog", 1024));
+        server.setExecutor(requests);
+        server.createContext("/passes", exchange -> handle(exchange, signedIn(this::passes)));
+        server.createContext("/metrics", exchange -> handle(exchange, signedIn(this::metrics)));
+        server.createContext("/validate", exchange -> handle(exchange, signedIn(this::validate)));
+        server.createContext("/login", exchange -> handle(exchange, this::login));
+        server.createContext("/logout", exchange -> handle(exchange, signedIn(this::logout)));
+        server.createContext("/stats", exchange -> handle(exchange, signedIn(ex -> ok(Map.of(
+                "pool", pool.metrics().toString(),
+                "login", auth.loginLatency().toString(),
+                "sessions", auth.sessions().size(),
+                "timings", metricsRegistry.values())))));
+        server.createContext("/health", exchange -> handle(exchange, ex -> ok(Map.of("status", "up"))));
+    }
+
+    /** Opens the pool, applies pending migrations and starts listening. */
+    public static PassHttpServer start(AppConfig config) throws IOException, SQLException {
+        PassHttpServer instance = new PassHttpServer(config);
+        instance.server.start();
+        return instance;
+    }
+
+    public static void main(String[] args) throws Exception {
+        AppConfig config = AppConfig.load();
+        StorageBackend.fromConfig(config).loadDriver(config);
+        PassHttpServer instance = start(config);
+        Runtime.getRuntime().addShutdownHook(new Thread(instance::close, "server-shutdown"));
+        LOG.log(System.Logger.Level.INFO, "Transport Pass service listening on {0}", instance.address());
+    }
+
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    @Override
+    public void close() {
+        server.stop(1);
+        changeFeed.close();
+        requests.shutdown();
+        auth.close();
+        db.close();
+        pool.close();
+        metricsRegistry.close();
+    }
+
+    /** Brings the gate index up to date with writes made by the desktop counters and other servers. */
+    private void applyRemoteChanges() {
+        try {
+            PassRepository.Changes changes = await(passes.findChanges(syncedVersion));
+            if (changes.reloadRequired()) {
+                LOG.log(System.Logger.Level.WARNING, "Changes since version {0} are not available (now at {1}); reloading the validation index",
+                        syncedVersion, changes.version());
+                validation.reload();
+            } else {
+                changes.deleted().forEach(validation::deleted);
+                changes.saved().forEach(pass -> validation.saved(pass.getId(), pass));
+            }
+            syncedVersion = changes.version();
+            metrics.invalidate();
+        } catch (Exception ex) {
+            // the next change retries from the same version, so nothing is lost
+            LOG.log(System.Logger.Level.WARNING, "Could not apply changes from other clients", ex);
+        }
+    }
+
+    // --- routing ---
+    private record Response(int status, Object body) { }
+
+    @FunctionalInterface
+    private interface Route {
+        Response serve(HttpExchange exchange) throws Exception;
+    }
+
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private Route signedIn(Route route) {
+        return exchange -> {
+            if (requireAuth && auth.authenticate(bearerToken(exchange)).isEmpty()) {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                throw new HttpError(401, "Sign in at /login and send the token as Authorization: Bearer <token>");
+            }
+            return route.serve(exchange);
+        };
+    }
+
+    private Response login(HttpExchange exchange) throws Exception {
+        if (!exchange.getRequestMethod().equals("POST")) throw new HttpError(405, "Use POST on /login");
+        Map<String, Object> body = readBody(exchange);
+        String username = text(body, "username");
+        String password = text(body, "password");
+        if (username == null || password == null) throw new HttpError(400, "username and password are required");
+        AuthService.LoginResult result = await(auth.login(username.trim().toLowerCase(Locale.ENGLISH), password));
+        if (!result.succeeded()) throw new HttpError(401, "Invalid username or password");
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("token", result.session().token());
+        response.put("username", result.session().username());
+        return ok(response);
+    }
+
+    private Response logout(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("POST")) throw new HttpError(405, "Use POST on /logout");
+        auth.logout(bearerToken(exchange));
+        return new Response(204, null);
+    }
+
+    private Response passes(HttpExchange exchange) throws Exception {
+        String method = exchange.getRequestMethod();
+        String rest = exchange.getRequestURI().getPath().substring("/passes".length());
+        if (rest.isEmpty() || rest.equals("/")) {
+            return switch (method) {
+                case "GET" -> list(query(exchange));
+                case "POST" -> create(readBody(exchange));
+                default -> throw new HttpError(405, "Use GET or POST on /passes");
+            };
+        }
+        if (rest.equals("/count")) {
+            if (!method.equals("GET")) throw new HttpError(405, "Use GET on /passes/count");
+            Map<String, String> params = query(exchange);
+            return ok(Map.of("count", await(passes.count(passQuery(params)))));
+        }
+        int id = parseId(rest.substring(1));
+        return switch (method) {
+            case "GET" -> ok(toJson(await(passes.findById(id)).orElseThrow(() -> notFound(id))));
+            case "PUT" -> update(id, readBody(exchange));
+            case "DELETE" -> {
+                if (!await(passes.delete(id))) throw notFound(id);
+                yield new Response(204, null);
+            }
+            default -> throw new HttpError(405, "Use GET, PUT or DELETE on /passes/{id}");
+        };
+    }
+
+    private Response list(Map<String, String> params) throws Exception {
+        int offset = intParam(params, "offset", 0);
+        int limit = Math.min(intParam(params, "limit", 100), MAX_PAGE_SIZE);
+        if (offset < 0 || limit <= 0) throw new HttpError(400, "offset must be >= 0 and limit > 0");
+        PassRepository.Page page = await(passes.findPage(passQuery(params), null, offset, limit));
+        List<Object> rows = new ArrayList<>(page.rows().size());
+        page.rows().forEach(pass -> rows.add(toJson(pass)));
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("passes", rows);
+        body.put("offset", offset);
+        body.put("nextOffset", rows.size() < limit ? null : offset + rows.size());
+        return ok(body);
+    }
+
+    private Response create(Map<String, Object> body) throws Exception {
+        Pass pass = fromJson(body);
+        pass.setId(await(passes.insert(pass)));
+        return new Response(201, toJson(pass));
+    }
+
+    private Response update(int id, Map<String, Object> body) throws Exception {
+        Pass pass = fromJson(body);
+        if (!await(passes.update(id, pass))) throw notFound(id);
+        pass.setId(id);
+        return ok(toJson(pass));
+    }
+
+    private Response validate(HttpExchange exchange) throws Exception {
+        if (!exchange.getRequestMethod().equals("GET")) throw new HttpError(405, "Use GET on /validate");
+        Map<String, String> params = query(exchange);
+        int id = intParam(params, "id", 0);
+        PassValidationIndex.Verdict verdict = await(validation.validate(id, params.get("source"), params.get("destination")));
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", id);
+        body.put("verdict", verdict.name());
+        body.put("valid", verdict == PassValidationIndex.Verdict.VALID);
+        body.put("passType", validation.passType(id));
+        return ok(body);
+    }
+
+    private Response metrics(HttpExchange exchange) throws Exception {
+        if (!exchange.getRequestMethod().equals("GET")) throw new HttpError(405, "Use GET on /metrics");
+        PassMetricsRepository.DashboardMetrics figures = await(metrics.metrics());
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("total", figures.total());
+        body.put("active", figures.active());
+        body.put("expiringSoon", figures.expiringSoon());
+        body.put("countByType", figures.countByType());
+        body.put("asOf", figures.asOf().toString());
+        return ok(body);
+    }
+
+    private void handle(HttpExchange exchange, Route route) throws IOException {
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = route.serve(exchange);
+        } catch (HttpError ex) {
+            response = error(ex.status, ex.getMessage());
+        } catch (IllegalArgumentException ex) {
+            response = error(400, ex.getMessage());
+        } catch (SQLTransientConnectionException ex) {
+            response = error(503, "Database busy, retry shortly");
+        } catch (AuthService.BusyException ex) {
+            response = error(503, "Too many sign-ins in progress, retry shortly");
+        } catch (RejectedExecutionException ex) {
+            // an executor refusing work outside sign-in means the service is stopping
+            response = error(503, "Service is shutting down");
+        } catch (Exception ex) {
+            LOG.log(System.Logger.Level.ERROR, "Request failed: " + exchange.getRequestMethod() + " " + exchange.getRequestURI(), ex);
+            response = error(500, "Internal error");
+        }
+        String operation = "http" + exchange.getHttpContext().getPath().replace('/', '.');
+        metricsRegistry.timer(operation).recordSince(start);
+        if (response.status() >= 500) {
+            metricsRegistry.counter("http.errors").increment();
+        }
+        try (exchange) {
+            if (response.body() == null) {
+                exchange.sendResponseHeaders(response.status(), -1);
+                return;
+            }
+            byte[] bytes = Json.write(response.body()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(response.status(), bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    // --- helpers ---
+    private static Response ok(Object body) {
+        return new Response(200, body);
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, Map.of("error", String.valueOf(message)));
+    }
+
+    private static HttpError notFound(int id) {
+        return new HttpError(404, "No pass with id " + id);
+    }
+
+    /** Waits for a repository call; the caller is already on its own virtual thread. */
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = DbExecutor.unwrap(ex);
+            if (cause instanceof Exception checked) throw checked;
+            throw ex;
+        }
+    }
+
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) return null;
+        return header.substring(7).trim();
+    }
+
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) throw new HttpError(413, "Request body too large");
+            return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null || raw.isEmpty()) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(key, value);
+        }
+        return params;
+    }
+
+    private static PassQuery passQuery(Map<String, String> params) {
+        PassQuery.Status status = PassQuery.Status.valueOf(params.getOrDefault("status", "all").toUpperCase(Locale.ROOT));
+        PassQuery.SortColumn sort = PassQuery.SortColumn.valueOf(params.getOrDefault("sort", "id").toUpperCase(Locale.ROOT));
+        boolean ascending = !params.getOrDefault("order", "asc").equalsIgnoreCase("desc");
+        return new PassQuery(params.get("search"), status, sort, ascending);
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new HttpError(400, name + " must be a number");
+        }
+    }
+
+    private static int parseId(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new HttpError(404, "Unknown resource /passes/" + value);
+        }
+    }
+
+    private static Map<String, Object> toJson(Pass pass) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", pass.getId());
+        json.put("passengerName", pass.getPassengerName());
+        json.put("passType", pass.getPassType());
+        json.put("durationType", pass.getDurationType());
+        json.put("durationDays", pass.getDurationDays());
+        json.put("source", pass.getSource());
+        json.put("destination", pass.getDestination());
+        json.put("validUntil", pass.getValidUntil());
+        json.put("status", pass.computeStatus());
+        return json;
+    }
+
+    /** A new pass from a request body, checked with the form's rules; {@code validUntil} is optional. */
+    private static Pass fromJson(Map<String, Object> body) {
+        String name = text(body, "passengerName");
+        String type = text(body, "passType");
+        String duration = text(body, "durationType");
+        String source = text(body, "source");
+        String destination = text(body, "destination");
+        Optional<String> problem = PassRules.validate(name, type, duration, source, destination);
+        if (problem.isPresent()) throw new HttpError(400, problem.get());
+        Pass pass = PassRules.newPass(name, type, duration, source, destination, LocalDate.now());
+        String validUntil = text(body, "validUntil");
+        if (validUntil != null && !validUntil.isBlank()) {
+            try {
+                pass.setValidUntilDate(LocalDate.parse(validUntil.trim()));
+            } catch (DateTimeParseException ex) {
+                throw new HttpError(400, "validUntil must be yyyy-MM-dd");
+            }
+        }
+        return pass;
+    }
+
+    private static String text(Map<String, Object> body, String field) {
+        Object value = body.get(field);
+        return value == null ? null : value.toString();
+    }
+}
@@ -0,0 +1,99 @@
+package com.transportpass;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Dashboard figures computed by the database with aggregate queries, for when the directory is not
+ * held in memory. Results are cached for {@code dashboard.metricsTtlMillis} and dropped as soon as
+ * {@link #invalidate} reports a write; concurrent readers share one query while it is in flight.
+ */
+public final class PassMetricsRepository {
+
+    /** Counts as of {@code asOf}; {@code countByType} is ordered by pass type. */
+    public record DashboardMetrics(int total, int active, int expiringSoon, Map<String, Integer> countByType, LocalDate asOf) { }
+
+    private static final String TOTAL_SQL = "SELECT COUNT(*) FROM transport_pass";
+    private static final String VALID_FROM_SQL = "SELECT COUNT(*) FROM transport_pass WHERE valid_until >= ?";
+    private static final String VALID_BETWEEN_SQL = "SELECT COUNT(*) FROM transport_pass WHERE valid_until BETWEEN ? AND ?";
+    private static final String BY_TYPE_SQL =
+            "SELECT pass_type, COUNT(*) FROM transport_pass GROUP BY pass_type ORDER BY pass_type";
+
+    private final DataSource dataSource;
+    private final DbExecutor executor;
+    private final long ttlNanos;
+    private CompletableFuture<DashboardMetrics> cached;
+    private long cachedAt;
+    private long cachedDay;
+
+    public PassMetricsRepository(DataSource dataSource, DbExecutor executor, AppConfig config) {
+        this.dataSource = dataSource;
+        this.executor = executor;
+        this.ttlNanos = config.getMillis("dashboard.metricsTtlMillis", 5_000).toNanos();
+    }
+
+    public synchronized CompletableFuture<DashboardMetrics> metrics() {
+        long now = System.nanoTime();
+        long today = Days.today();
+        if (cached != null && today == cachedDay && now - cachedAt < ttlNanos && !cached.isCompletedExceptionally()) {
+            return cached;
+        }
+        CompletableFuture<DashboardMetrics> query = executor.submitCancellable("dashboard.metrics", () -> load(LocalDate.ofEpochDay(today)));
+        cached = query;
+        cachedAt = now;
+        cachedDay = today;
+        query.whenComplete((value, ex) -> {
+            if (ex != null) {
+                forget(query);
+            }
+        });
+        return query;
+    }
+
+    /** Drops the cached figures; call after any insert, update or delete. */
+    public synchronized void invalidate() {
+        cached = null;
+    }
+
+    private synchronized void forget(CompletableFuture<DashboardMetrics> query) {
+        if (cached == query) {
+            cached = null;
+        }
+    }
+
+    private DashboardMetrics load(LocalDate today) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            int total = count(conn, TOTAL_SQL);
+            // range predicates on valid_until are answered from its index without reading rows
+            int active = count(conn, VALID_FROM_SQL, today);
+            int expiringSoon = count(conn, VALID_BETWEEN_SQL, today, today.plusDays(DashboardAggregates.EXPIRING_WINDOW_DAYS));
+            Map<String, Integer> countByType = new LinkedHashMap<>();
+            try (PreparedStatement ps = conn.prepareStatement(BY_TYPE_SQL);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String type = rs.getString(1);
+                    countByType.merge(type != null ? type : "Unknown", rs.getInt(2), Integer::sum);
+                }
+            }
+            return new DashboardMetrics(total, active, expiringSoon, countByType, today);
+        }
+    }
+
+    private static int count(Connection conn, String sql, LocalDate... dates) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < dates.length; i++) {
+                ps.setDate(i + 1, java.sql.Date.valueOf(dates[i]));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+}
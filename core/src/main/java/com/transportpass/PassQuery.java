@@ -0,0 +1,132 @@
+package com.transportpass;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Search, status filter and sort order of the Pass Directory, expressed as SQL so large
+ * tables can be filtered and sorted by the database instead of in memory.
+ */
+public record PassQuery(String search, Status status, SortColumn sortColumn, boolean ascending) {
+
+    public static final PassQuery ALL = new PassQuery("", Status.ALL, SortColumn.ID, true);
+
+    public enum Status { ALL, ACTIVE, EXPIRED }
+
+    public enum SortColumn {
+        ID("id"),
+        PASSENGER_NAME("passenger_name"),
+        PASS_TYPE("pass_type"),
+        DURATION_TYPE("COALESCE(duration_type, '')"),
+        SOURCE("COALESCE(source, '')"),
+        DESTINATION("COALESCE(destination, '')"),
+        VALID_UNTIL("valid_until");
+
+        private final String expression;
+
+        SortColumn(String expression) {
+            this.expression = expression;
+        }
+
+        public String expression() {
+            return expression;
+        }
+    }
+
+    /** Last row of a page; the next page starts strictly after it in the current sort order. */
+    public record Anchor(Object sortValue, int id) { }
+
+    public PassQuery {
+        search = search == null ? "" : search.trim().toLowerCase(Locale.ENGLISH);
+        status = status == null ? Status.ALL : status;
+        sortColumn = sortColumn == null ? SortColumn.ID : sortColumn;
+    }
+
+    public PassQuery withSort(SortColumn column, boolean ascendingOrder) {
+        return new PassQuery(search, status, column, ascendingOrder);
+    }
+
+    /**
+     * Appends the WHERE clause (possibly empty) for the search text and status filter.
+     * The search matches passenger name, pass type, source and destination like the in-memory
+     * {@link PassSearchIndex} does; the status part matches on the status wording ("active",
+     * "expiring", "expired", ...) but not on the day counts in it.
+     */
+    public String where(List<Object> params, LocalDate today) {
+        List<String> clauses = new ArrayList<>();
+        switch (status) {
+            case ACTIVE -> {
+                clauses.add("valid_until >= ?");
+                params.add(Date.valueOf(today));
+            }
+            case EXPIRED -> {
+                clauses.add("valid_until < ?");
+                params.add(Date.valueOf(today));
+            }
+            default -> { }
+        }
+        if (!search.isEmpty()) {
+            String pattern = "%" + escapeLike(search) + "%";
+            List<String> matches = new ArrayList<>();
+            matches.add("passenger_name LIKE ? ESCAPE '!'");
+            params.add(pattern);
+            matches.add("pass_type LIKE ? ESCAPE '!'");
+            params.add(pattern);
+            matches.add("source LIKE ? ESCAPE '!'");
+            params.add(pattern);
+            matches.add("destination LIKE ? ESCAPE '!'");
+            params.add(pattern);
+            addStatusWordMatches(matches, params, today);
+            clauses.add("(" + String.join(" OR ", matches) + ")");
+        }
+        return clauses.isEmpty() ? "" : " WHERE " + String.join(" AND ", clauses);
+    }
+
+    private void addStatusWordMatches(List<String> matches, List<Object> params, LocalDate today) {
+        if ("expired".contains(search) || search.startsWith("expired")) {
+            matches.add("valid_until < ?");
+            params.add(Date.valueOf(today));
+        }
+        if ("expires today".contains(search)) {
+            matches.add("valid_until = ?");
+            params.add(Date.valueOf(today));
+        }
+        if ("expiring in".contains(search) || search.startsWith("expiring")) {
+            matches.add("valid_until BETWEEN ? AND ?");
+            params.add(Date.valueOf(today.plusDays(1)));
+            params.add(Date.valueOf(today.plusDays(5)));
+        }
+        if ("active".contains(search) || search.startsWith("active")) {
+            matches.add("valid_until > ?");
+            params.add(Date.valueOf(today.plusDays(5)));
+        }
+    }
+
+    /** Keyset predicate selecting rows after {@code anchor}, to be ANDed onto {@link #where}. */
+    public String after(Anchor anchor, List<Object> params) {
+        String cmp = ascending ? ">" : "<";
+        if (sortColumn == SortColumn.ID) {
+            params.add(anchor.id());
+            return "id " + cmp + " ?";
+        }
+        params.add(anchor.sortValue());
+        params.add(anchor.sortValue());
+        params.add(anchor.id());
+        return "(" + sortColumn.expression() + " " + cmp + " ? OR (" + sortColumn.expression() + " = ? AND id " + cmp + " ?))";
+    }
+
+    public String orderBy() {
+        String direction = ascending ? " ASC" : " DESC";
+        if (sortColumn == SortColumn.ID) {
+            return " ORDER BY id" + direction;
+        }
+        return " ORDER BY " + sortColumn.expression() + direction + ", id" + direction;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
@@ -0,0 +1,348 @@
+package com.transportpass;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Asynchronous access to the transport_pass table.
+ * Every call runs on the {@link DbExecutor}; callers decide which thread consumes the result.
+ */
+public final class PassRepository {
+
+    private static final String PASS_COLUMNS =
+            "id, passenger_name, pass_type, duration_type, duration_days, source, destination, valid_until";
+    private static final String INSERT_SQL =
+            "INSERT INTO transport_pass (passenger_name, pass_type, duration_type, duration_days, source, destination, valid_until, row_version, updated_at)"
+                    + " VALUES (?,?,?,?,?,?,?,?,CURRENT_TIMESTAMP)";
+    private static final String UPDATE_SQL =
+            "UPDATE transport_pass SET passenger_name=?, pass_type=?, duration_type=?, duration_days=?, source=?, destination=?, valid_until=?,"
+                    + " row_version=?, updated_at=CURRENT_TIMESTAMP WHERE id=?";
+    private static final String DELETE_SQL = "DELETE FROM transport_pass WHERE id=?";
+    private static final String FIND_BY_ID_SQL = "SELECT " + PASS_COLUMNS + " FROM transport_pass WHERE id=?";
+    private static final String CHANGED_SQL =
+            "SELECT " + PASS_COLUMNS + " FROM transport_pass WHERE row_version > ? AND row_version <= ? ORDER BY id";
+    private static final String DELETED_SQL =
+            "SELECT pass_id FROM pass_tombstone WHERE row_version > ? AND row_version <= ?";
+
+    private final DataSource dataSource;
+    private final DbExecutor executor;
+    private final List<WriteListener> writeListeners = new CopyOnWriteArrayList<>();
+
+    /** Told about every successful write, on the database thread, e.g. to drop cached figures or refresh an index. */
+    public interface WriteListener {
+        /** After an insert (with its generated id) or an update of pass {@code id} to {@code values}. */
+        void saved(int id, Pass values);
+
+        void deleted(int id);
+
+        /** A listener that only cares that something changed. */
+        static WriteListener onAnyWrite(Runnable action) {
+            return new WriteListener() {
+                @Override
+                public void saved(int id, Pass values) {
+                    action.run();
+                }
+
+                @Override
+                public void deleted(int id) {
+                    action.run();
+                }
+            };
+        }
+    }
+
+    /** One window of the directory plus the keyset anchor of its last row. */
+    public record Page(List<Pass> rows, PassQuery.Anchor last) { }
+
+    /** Every pass, current as of change {@code version}. */
+    public record Directory(List<Pass> passes, long version) { }
+
+    /**
+     * Passes inserted or updated, and ids deleted, after one change version up to {@code version}.
+     * A pass can appear in both when its id was deleted and then reused; apply deletions first.
+     * With {@code reloadRequired} the lists are empty and only a full {@link #loadDirectory} is
+     * reliable: the database was replaced or restored, or the deletions asked about were pruned.
+     */
+    public record Changes(List<Pass> saved, List<Integer> deleted, long version, boolean reloadRequired) {
+        public boolean isEmpty() {
+            return saved.isEmpty() && deleted.isEmpty();
+        }
+    }
+
+    public PassRepository(DataSource dataSource, DbExecutor executor) {
+        this.dataSource = dataSource;
+        this.executor = executor;
+    }
+
+    public void addWriteListener(WriteListener listener) {
+        writeListeners.add(listener);
+    }
+
+    public CompletableFuture<List<Pass>> findAll() {
+        return loadDirectory().thenApply(Directory::passes);
+    }
+
+    /** Every pass, with the change version to pass to {@link #findChanges} next time. */
+    public CompletableFuture<Directory> loadDirectory() {
+        return executor.submitCancellable("pass.load", () -> {
+            List<Pass> passes = new ArrayList<>();
+            try (Connection conn = dataSource.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                // read before the rows: anything committed meanwhile is simply sent again by the next sync
+                long version = PassChangeLog.currentVersion(conn);
+                try (ResultSet rs = stmt.executeQuery("SELECT " + PASS_COLUMNS + " FROM transport_pass ORDER BY id")) {
+                    while (rs.next()) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            throw new SQLException("Load cancelled");
+                        }
+                        passes.add(mapRow(rs));
+                    }
+                }
+                return new Directory(passes, version);
+            }
+        });
+    }
+
+    /** The newest committed change version. */
+    public CompletableFuture<Long> changeVersion() {
+        return executor.submitCancellable("pass.changeVersion", () -> {
+            try (Connection conn = dataSource.getConnection()) {
+                return PassChangeLog.currentVersion(conn);
+            }
+        });
+    }
+
+    /** What changed after {@code sinceVersion}; see {@link Changes#reloadRequired}. */
+    public CompletableFuture<Changes> findChanges(long sinceVersion) {
+        return executor.submitCancellable("pass.changes", () -> {
+            try (Connection conn = dataSource.getConnection()) {
+                long version = PassChangeLog.currentVersion(conn);
+                if (version <= sinceVersion) {
+                    // below: the database was replaced or restored and its versions mean something else
+                    return new Changes(List.of(), List.of(), version, version < sinceVersion);
+                }
+                List<Pass> saved = new ArrayList<>();
+                try (PreparedStatement ps = conn.prepareStatement(CHANGED_SQL)) {
+                    ps.setLong(1, sinceVersion);
+                    ps.setLong(2, version);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            saved.add(mapRow(rs));
+                        }
+                    }
+                }
+                List<Integer> deleted = new ArrayList<>();
+                try (PreparedStatement ps = conn.prepareStatement(DELETED_SQL)) {
+                    ps.setLong(1, sinceVersion);
+                    ps.setLong(2, version);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            deleted.add(rs.getInt(1));
+                        }
+                    }
+                }
+                // read after the tombstones: a prune that removed some of them has raised it by now
+                if (PassChangeLog.prunedVersion(conn) > sinceVersion) {
+                    return new Changes(List.of(), List.of(), version, true);
+                }
+                return new Changes(saved, deleted, version, false);
+            }
+        });
+    }
+
+    public CompletableFuture<Optional<Pass>> findById(int id) {
+        return executor.submitCancellable("pass.findById", () -> {
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(FIND_BY_ID_SQL)) {
+                ps.setInt(1, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? Optional.of(mapRow(rs)) : Optional.empty();
+                }
+            }
+        });
+    }
+
+    public CompletableFuture<Integer> count(PassQuery query) {
+        return executor.submitCancellable("pass.count", () -> {
+            List<Object> params = new ArrayList<>();
+            String sql = "SELECT COUNT(*) FROM transport_pass" + query.where(params, LocalDate.now());
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                bindParams(ps, params);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+        });
+    }
+
+    /**
+     * Fetches up to {@code limit} rows in the query's sort order. With an anchor the page is
+     * located by keyset (an index seek); without one it falls back to skipping {@code offset} rows.
+     */
+    public CompletableFuture<Page> findPage(PassQuery query, PassQuery.Anchor after, int offset, int limit) {
+        return executor.submitCancellable("pass.page", () -> {
+            List<Object> params = new ArrayList<>();
+            StringBuilder sql = new StringBuilder("SELECT ").append(PASS_COLUMNS)
+                    .append(", ").append(query.sortColumn().expression()).append(" AS sort_key FROM transport_pass");
+            String where = query.where(params, LocalDate.now());
+            sql.append(where);
+            if (after != null) {
+                sql.append(where.isEmpty() ? " WHERE " : " AND ").append(query.after(after, params));
+            }
+            sql.append(query.orderBy()).append(" LIMIT ?");
+            params.add(limit);
+            if (after == null && offset > 0) {
+                sql.append(" OFFSET ?");
+                params.add(offset);
+            }
+            List<Pass> rows = new ArrayList<>(limit);
+            PassQuery.Anchor last = null;
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+                bindParams(ps, params);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Pass pass = mapRow(rs);
+                        rows.add(pass);
+                        last = new PassQuery.Anchor(rs.getObject("sort_key"), pass.getId());
+                    }
+                }
+            }
+            return new Page(rows, last);
+        });
+    }
+
+    /** Inserts the pass and completes with its generated id. */
+    public CompletableFuture<Integer> insert(Pass pass) {
+        return executor.submit("pass.insert", () -> {
+            int id = inTransaction(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                    bindPass(ps, pass);
+                    ps.setLong(8, PassChangeLog.nextVersion(conn));
+                    ps.executeUpdate();
+                    try (ResultSet rs = ps.getGeneratedKeys()) {
+                        return rs.next() ? rs.getInt(1) : 0;
+                    }
+                }
+            });
+            for (WriteListener listener : writeListeners) listener.saved(id, pass);
+            return id;
+        });
+    }
+
+    /** Completes with {@code false} when no pass has that id. */
+    public CompletableFuture<Boolean> update(int id, Pass values) {
+        return executor.submit("pass.update", () -> {
+            int changed = inTransaction(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(UPDATE_SQL)) {
+                    bindPass(ps, values);
+                    ps.setLong(8, PassChangeLog.nextVersion(conn));
+                    ps.setInt(9, id);
+                    return ps.executeUpdate();
+                }
+            });
+            if (changed > 0) {
+                for (WriteListener listener : writeListeners) listener.saved(id, values);
+            }
+            return changed > 0;
+        });
+    }
+
+    /** Completes with {@code false} when no pass has that id. */
+    public CompletableFuture<Boolean> delete(int id) {
+        return executor.submit("pass.delete", () -> {
+            int changed = inTransaction(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(DELETE_SQL)) {
+                    long version = PassChangeLog.nextVersion(conn);
+                    ps.setInt(1, id);
+                    int rows = ps.executeUpdate();
+                    if (rows > 0) {
+                        PassChangeLog.recordDeletion(conn, id, version);
+                    }
+                    return rows;
+                }
+            });
+            if (changed > 0) {
+                for (WriteListener listener : writeListeners) listener.deleted(id);
+            }
+            return changed > 0;
+        });
+    }
+
+    private interface TransactionWork<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    /** Runs one write and its change-sequence bump as a single transaction. */
+    private <T> T inTransaction(TransactionWork<T> work) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                T result = work.run(conn);
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static void bindPass(PreparedStatement ps, Pass pass) throws SQLException {
+        ps.setString(1, pass.getPassengerName());
+        ps.setString(2, pass.getPassType());
+        ps.setString(3, pass.getDurationType());
+        ps.setInt(4, pass.getDurationDays());
+        ps.setString(5, pass.getSource());
+        ps.setString(6, pass.getDestination());
+        ps.setDate(7, java.sql.Date.valueOf(pass.getValidUntilDate()));
+    }
+
+    private static void bindParams(PreparedStatement ps, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            ps.setObject(i + 1, params.get(i));
+        }
+    }
+
+    /** Maps the current row of a query over the pass columns; loads, pages and lookups all go through here. */
+    public static Pass mapRow(ResultSet rs) throws SQLException {
+        String durationType = rs.getString("duration_type");
+        int durationDays = rs.getInt("duration_days");
+        if (durationType == null || durationType.isEmpty()) {
+            // For backward compatibility, try to infer from duration_days
+            durationType = switch (durationDays) {
+                case 1 -> "Daily";
+                case 7 -> "Weekly";
+                case 30 -> "Monthly";
+                case 90 -> "Quarterly";
+                case 365 -> "Yearly";
+                default -> "Monthly";
+            };
+        }
+        String passType = rs.getString("pass_type");
+        String source = rs.getString("source");
+        String destination = rs.getString("destination");
+        return new Pass(
+                rs.getInt("id"),
+                rs.getString("passenger_name"),
+                passType != null ? passType : "Unknown",
+                durationType,
+                durationDays,
+                source != null ? source : "",
+                destination != null ? destination : "",
+                rs.getDate("valid_until").toLocalDate());
+    }
+}
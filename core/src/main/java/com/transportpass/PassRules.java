@@ -0,0 +1,69 @@
+package com.transportpass;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Validation and derivation rules shared by every way a pass enters the system: the form,
+ * bulk imports and the HTTP API. Keeping them here means a file row is accepted exactly when
+ * the same values typed into the form would be.
+ */
+public final class PassRules {
+
+    /** Pass types offered by the form. */
+    public static final List<String> PASS_TYPES = List.of("Bus", "Metro", "Train");
+
+    /** Durations from shortest to longest; each has a {@link #durationDays} value. */
+    public static final List<String> DURATION_TYPES = List.of("Daily", "Weekly", "Monthly", "Quarterly", "Yearly");
+
+    /** Mumbai stations pre-filled in the form's source and destination pickers. */
+    public static final List<String> STATIONS = List.of(
+            "Andheri", "Bandra", "Borivali", "Churchgate", "Colaba", "Dadar", "Goregaon", "Juhu", "Kurla",
+            "Marine Lines", "Matunga", "Parel", "Vashi", "Versova", "Worli", "Mumbai Central",
+            "Bandra Kurla Complex", "Chembur", "Ghatkopar", "Kalyan", "Thane", "Nerul", "Belapur", "Panvel");
+
+    private PassRules() {
+    }
+
+    /** Days a pass of the given duration stays valid, or 0 for an unknown duration. */
+    public static int durationDays(String durationType) {
+        if (durationType == null) return 0;
+        return switch (durationType.toLowerCase()) {
+            case "daily" -> 1;
+            case "weekly" -> 7;
+            case "monthly" -> 30;
+            case "quarterly" -> 90;
+            case "yearly" -> 365;
+            default -> 0;
+        };
+    }
+
+    /** The first problem with the given values, worded for the user, or empty when they make a valid pass. */
+    public static Optional<String> validate(String passengerName, String passType, String durationType, String source, String destination) {
+        if (isBlank(passengerName)) return Optional.of("Passenger name cannot be empty.");
+        if (isBlank(passType)) return Optional.of("Please select a pass type.");
+        if (isBlank(durationType)) return Optional.of("Please select a duration.");
+        if (durationDays(durationType) == 0) return Optional.of("Unknown duration: " + durationType.trim() + ".");
+        if (isBlank(source)) return Optional.of("Please select or enter a source.");
+        if (isBlank(destination)) return Optional.of("Please select or enter a destination.");
+        return Optional.empty();
+    }
+
+    /**
+     * Builds a new pass from validated values. The stored type carries the duration ("Student Monthly")
+     * unless it already does, and the expiry is counted from {@code issuedOn}.
+     */
+    public static Pass newPass(String passengerName, String passType, String durationType, String source, String destination, LocalDate issuedOn) {
+        String type = passType.trim();
+        String duration = durationType.trim();
+        String fullPassType = type.toLowerCase().endsWith(" " + duration.toLowerCase()) ? type : type + " " + duration;
+        int durationDays = durationDays(duration);
+        return new Pass(0, passengerName.trim(), fullPassType, duration, durationDays, source.trim(), destination.trim(),
+                issuedOn.plusDays(durationDays));
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
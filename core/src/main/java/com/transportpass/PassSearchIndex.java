@@ -0,0 +1,395 @@
+package com.transportpass;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trigram index over passenger name, pass type and route stations, plus status buckets by
+ * expiry day, so the Pass Directory search box answers substring queries without lower-casing
+ * and scanning every row. Each pass occupies a slot; searches return the {@link Matches} slots
+ * which {@link #matches} tests per row. The index follows the list it is built over and row edits
+ * reported through {@link Pass.Observer}; searches may run on any thread.
+ */
+public final class PassSearchIndex implements Pass.Observer {
+
+    /**
+     * The slots matched by one search. Slots are reused once their pass leaves, so a result also
+     * records how many passes had been added when it was taken; a pass added later never matches
+     * it, even in a slot whose bit is set, until a new search covers it.
+     */
+    public record Matches(BitSet slots, long generation) { }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Pass, Integer> slots = new IdentityHashMap<>();
+    private final TrigramTable postings = new TrigramTable();
+    private String[] text = new String[1024];
+    private long[] expiryDay = new long[1024];
+    /** Value of {@link #generation} when each slot was last filled. */
+    private long[] addedAt = new long[1024];
+    private long generation;
+    private final BitSet live = new BitSet();
+    private final BitSet freeSlots = new BitSet();
+    private int slotCount;
+    private long stalePostings;
+    private long totalPostings;
+
+    // status buckets, valid for bucketDay
+    private volatile long bucketDay = Long.MIN_VALUE;
+    private final BitSet activeSlots = new BitSet();
+    private final BitSet expiringSlots = new BitSet();
+    private final BitSet expiresTodaySlots = new BitSet();
+
+    public PassSearchIndex(ObservableList<Pass> passes) {
+        passes.forEach(this::add);
+        passes.addListener((ListChangeListener<Pass>) change -> {
+            while (change.next()) {
+                if (change.wasPermutated() || change.wasUpdated()) continue;
+                change.getRemoved().forEach(this::remove);
+                change.getAddedSubList().forEach(this::add);
+            }
+        });
+    }
+
+    @Override
+    public void beforeChange(Pass pass) {
+        remove(pass);
+    }
+
+    @Override
+    public void afterChange(Pass pass) {
+        add(pass);
+    }
+
+    /**
+     * Slots of passes whose name, type, source, destination or status wording (not its day
+     * counts) contains {@code query} (case-insensitive), restricted to the given status. Returns
+     * {@code null} when nothing is filtered.
+     */
+    public Matches search(String query, PassQuery.Status status) {
+        String needle = query == null ? "" : query.trim().toLowerCase(Locale.ENGLISH);
+        if (bucketDay != Days.today()) {
+            lock.writeLock().lock();
+            try {
+                refreshBuckets();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        lock.readLock().lock();
+        try {
+            BitSet statusFilter = statusSlots(status);
+            if (needle.isEmpty()) {
+                return statusFilter == null ? null : new Matches(statusFilter, generation);
+            }
+            BitSet result = textMatches(needle);
+            result.or(statusWordMatches(needle));
+            if (statusFilter != null) {
+                result.and(statusFilter);
+            }
+            return new Matches(result, generation);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether {@code pass} is in a result from {@link #search}; a {@code null} result matches everything.
+     * Only the thread that maintains the index (the JavaFX thread) may call this; it skips locking
+     * because it is evaluated once per row whenever the table's filter changes.
+     */
+    public boolean matches(Matches result, Pass pass) {
+        if (result == null) return true;
+        Integer slot = slots.get(pass);
+        return slot != null && addedAt[slot] <= result.generation() && result.slots().get(slot);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- maintenance ---
+    private void add(Pass pass) {
+        lock.writeLock().lock();
+        try {
+            if (slots.containsKey(pass)) return;
+            int slot = freeSlots.nextSetBit(0);
+            if (slot >= 0) {
+                freeSlots.clear(slot);
+            } else {
+                slot = slotCount++;
+                ensureCapacity(slotCount);
+            }
+            slots.put(pass, slot);
+            addedAt[slot] = ++generation;
+            String rowText = rowText(pass);
+            text[slot] = rowText;
+            expiryDay[slot] = pass.getValidUntilEpochDay();
+            live.set(slot);
+            indexTrigrams(slot, rowText);
+            if (bucketDay != Long.MIN_VALUE) {
+                setBuckets(slot, true);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(Pass pass) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.remove(pass);
+            if (slot == null) return;
+            if (bucketDay != Long.MIN_VALUE) {
+                setBuckets(slot, false);
+            }
+            live.clear(slot);
+            freeSlots.set(slot);
+            // posting entries for this slot stay behind and are filtered out by verification
+            stalePostings += distinctTrigrams(text[slot]);
+            text[slot] = null;
+            if (stalePostings > 1024 && stalePostings > totalPostings / 2) {
+                rebuildPostings();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > text.length) {
+            int capacity = Math.max(needed, text.length * 2);
+            text = Arrays.copyOf(text, capacity);
+            expiryDay = Arrays.copyOf(expiryDay, capacity);
+            addedAt = Arrays.copyOf(addedAt, capacity);
+        }
+    }
+
+    private static String rowText(Pass pass) {
+        // unit separators keep trigrams from spanning two fields
+        return (nullToEmpty(pass.getPassengerName()) + '\u001f' + nullToEmpty(pass.getPassType()) + '\u001f'
+                + nullToEmpty(pass.getSource()) + '\u001f' + nullToEmpty(pass.getDestination()))
+                .toLowerCase(Locale.ENGLISH);
+    }
+
+    private void indexTrigrams(int slot, String rowText) {
+        long[] grams = trigrams(rowText);
+        for (long gram : grams) {
+            postings.getOrCreate(gram).add(slot);
+        }
+        totalPostings += grams.length;
+    }
+
+    private void rebuildPostings() {
+        postings.clear();
+        totalPostings = 0;
+        stalePostings = 0;
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            indexTrigrams(slot, text[slot]);
+        }
+    }
+
+    // --- querying ---
+    private BitSet textMatches(String needle) {
+        BitSet result = new BitSet(slotCount);
+        if (needle.length() < 3) {
+            // too short for a trigram; a scan of the pre-lowered text is still allocation-free per row
+            for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+                if (text[slot].contains(needle)) result.set(slot);
+            }
+            return result;
+        }
+        int[] smallest = null;
+        int smallestSize = Integer.MAX_VALUE;
+        for (long gram : trigrams(needle)) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return result;
+            }
+            if (list.size < smallestSize) {
+                smallest = list.slots;
+                smallestSize = list.size;
+            }
+        }
+        if (smallest == null) {
+            return result;
+        }
+        for (int i = 0; i < smallestSize; i++) {
+            int slot = smallest[i];
+            String rowText = text[slot];
+            if (rowText != null && rowText.contains(needle)) {
+                result.set(slot);
+            }
+        }
+        return result;
+    }
+
+    /** Rows whose computed status text ("Expired (…)", "Expires today", "Expiring in …", "Active (…)") contains the query. */
+    private BitSet statusWordMatches(String needle) {
+        BitSet result = new BitSet();
+        if ("expired".contains(needle) || needle.startsWith("expired")) {
+            BitSet expired = (BitSet) live.clone();
+            expired.andNot(activeSlots);
+            result.or(expired);
+        }
+        if ("expires today".contains(needle)) {
+            result.or(expiresTodaySlots);
+        }
+        if ("expiring in".contains(needle) || needle.startsWith("expiring")) {
+            BitSet expiring = (BitSet) expiringSlots.clone();
+            expiring.andNot(expiresTodaySlots);
+            result.or(expiring);
+        }
+        if ("active".contains(needle) || needle.startsWith("active")) {
+            BitSet longLived = (BitSet) activeSlots.clone();
+            longLived.andNot(expiringSlots);
+            result.or(longLived);
+        }
+        return result;
+    }
+
+    private BitSet statusSlots(PassQuery.Status status) {
+        if (status == PassQuery.Status.ALL) return null;
+        BitSet result = (BitSet) activeSlots.clone();
+        if (status == PassQuery.Status.EXPIRED) {
+            BitSet expired = (BitSet) live.clone();
+            expired.andNot(result);
+            return expired;
+        }
+        return result;
+    }
+
+    /** Rebuilds the status buckets when the date has moved on; a primitive scan done once a day. */
+    private void refreshBuckets() {
+        long today = Days.today();
+        if (today == bucketDay) return;
+        activeSlots.clear();
+        expiringSlots.clear();
+        expiresTodaySlots.clear();
+        bucketDay = today;
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            setBuckets(slot, true);
+        }
+    }
+
+    private void setBuckets(int slot, boolean value) {
+        long days = expiryDay[slot] - bucketDay;
+        if (days >= 0) activeSlots.set(slot, value);
+        if (days >= 0 && days <= DashboardAggregates.EXPIRING_WINDOW_DAYS) expiringSlots.set(slot, value);
+        if (days == 0) expiresTodaySlots.set(slot, value);
+    }
+
+    // --- trigram helpers ---
+    private static long[] trigrams(String value) {
+        if (value.length() < 3) return new long[0];
+        long[] grams = new long[value.length() - 2];
+        int count = 0;
+        for (int i = 0; i + 3 <= value.length(); i++) {
+            char a = value.charAt(i);
+            char b = value.charAt(i + 1);
+            char c = value.charAt(i + 2);
+            if (a == '\u001f' || b == '\u001f' || c == '\u001f') continue;
+            grams[count++] = ((long) a << 32) | ((long) b << 16) | c;
+        }
+        long[] distinct = Arrays.copyOf(grams, count);
+        Arrays.sort(distinct);
+        int unique = 0;
+        for (int i = 0; i < distinct.length; i++) {
+            if (i == 0 || distinct[i] != distinct[i - 1]) distinct[unique++] = distinct[i];
+        }
+        return Arrays.copyOf(distinct, unique);
+    }
+
+    private static int distinctTrigrams(String value) {
+        return value == null ? 0 : trigrams(value).length;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /** Open-addressing map from packed trigram to postings; avoids boxing a key per lookup. */
+    private static final class TrigramTable {
+        private static final long EMPTY = -1L;
+        private long[] keys = newKeys(1 << 12);
+        private Postings[] values = new Postings[1 << 12];
+        private int size;
+
+        Postings get(long gram) {
+            int mask = keys.length - 1;
+            for (int i = mix(gram) & mask; ; i = (i + 1) & mask) {
+                if (keys[i] == gram) return values[i];
+                if (keys[i] == EMPTY) return null;
+            }
+        }
+
+        Postings getOrCreate(long gram) {
+            int mask = keys.length - 1;
+            int i = mix(gram) & mask;
+            for (; keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == gram) return values[i];
+            }
+            if (++size * 2 > keys.length) {
+                grow();
+                return getOrCreate(gram);
+            }
+            keys[i] = gram;
+            return values[i] = new Postings();
+        }
+
+        void clear() {
+            keys = newKeys(1 << 12);
+            values = new Postings[1 << 12];
+            size = 0;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Postings[] oldValues = values;
+            keys = newKeys(oldKeys.length * 2);
+            values = new Postings[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] == EMPTY) continue;
+                int i = mix(oldKeys[j]) & mask;
+                while (keys[i] != EMPTY) i = (i + 1) & mask;
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+
+        private static long[] newKeys(int capacity) {
+            long[] table = new long[capacity];
+            Arrays.fill(table, EMPTY);
+            return table;
+        }
+
+        private static int mix(long gram) {
+            long h = gram * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+}
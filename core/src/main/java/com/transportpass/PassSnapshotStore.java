@@ -0,0 +1,248 @@
+package com.transportpass;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * A local copy of the last fully loaded pass set, so the directory can be shown before the database
+ * answers. The file is read through a memory map; it records the database it came from, and a
+ * snapshot of another database, an older format or a damaged file (checked by CRC) is ignored.
+ * Saves go to a temporary file that atomically replaces the old one, so a crash mid-save leaves the
+ * previous snapshot intact. File work runs on one background thread, in submission order.
+ * Each snapshot also keeps the change version its rows are current to, so it can be brought up to
+ * date with {@link PassRepository#findChanges} instead of a full reload.
+ *
+ * <p>Layout: a fixed header, the rows, then a dictionary of the repeated text (types, durations,
+ * stations) that rows refer to by index.
+ */
+public final class PassSnapshotStore implements AutoCloseable {
+
+    /** Passes as of change {@code version}, saved at {@code savedAtMillis}. */
+    public record Snapshot(List<Pass> passes, long version, long savedAtMillis) { }
+
+    private static final byte[] MAGIC = "TPSNAP\n\0".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 2;
+    /** magic, format, saved-at, change version, row count, dictionary offset, body length, body CRC, source length. */
+    private static final int FIXED_HEADER_BYTES = 8 + 4 + 8 + 8 + 4 + 8 + 8 + 4 + 4;
+    private static final int NULL_TEXT = -1;
+
+    private final Path file;
+    private final byte[] source;
+    private final ExecutorService io = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pass-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** {@code source} names the database the passes come from, e.g. {@link StorageBackend#identity}. */
+    public PassSnapshotStore(Path file, String source) {
+        this.file = file;
+        this.source = source.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** The saved snapshot, or empty when there is none this store can use. */
+    public CompletableFuture<Optional<Snapshot>> load() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return read();
+            } catch (IOException | RuntimeException ex) {
+                // missing or unreadable: a snapshot is only a cache, rebuilt after the next full load
+                return Optional.empty();
+            }
+        }, io);
+    }
+
+    /** Replaces the snapshot with {@code passes}; the list must not change while it is written. */
+    public CompletableFuture<Void> save(List<Pass> passes, long version) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                write(passes, version);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, io);
+    }
+
+    @Override
+    public void close() {
+        io.shutdown();
+    }
+
+    // --- reading ---
+    private Optional<Snapshot> read() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FIXED_HEADER_BYTES || size > Integer.MAX_VALUE) return Optional.empty();
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            byte[] magic = new byte[MAGIC.length];
+            map.get(magic);
+            if (!Arrays.equals(magic, MAGIC) || map.getInt() != FORMAT_VERSION) return Optional.empty();
+            long savedAt = map.getLong();
+            long version = map.getLong();
+            int rows = map.getInt();
+            long dictionaryOffset = map.getLong();
+            long bodyLength = map.getLong();
+            int bodyCrc = map.getInt();
+            int sourceLength = map.getInt();
+            if (sourceLength != source.length || map.remaining() < sourceLength) return Optional.empty();
+            byte[] storedSource = new byte[sourceLength];
+            map.get(storedSource);
+            if (!Arrays.equals(storedSource, source)) return Optional.empty();
+
+            int bodyStart = map.position();
+            if (bodyStart + bodyLength != size || dictionaryOffset < bodyStart || dictionaryOffset > size) return Optional.empty();
+            CRC32 crc = new CRC32();
+            crc.update(map.duplicate().position(bodyStart));
+            if ((int) crc.getValue() != bodyCrc) return Optional.empty();
+
+            ByteBuffer dictionary = map.duplicate().position((int) dictionaryOffset);
+            String[] texts = new String[dictionary.getInt()];
+            for (int i = 0; i < texts.length; i++) {
+                texts[i] = readText(dictionary);
+            }
+
+            List<Pass> passes = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                int id = map.getInt();
+                long validUntilDay = map.getInt();
+                int durationDays = map.getInt();
+                String passType = lookup(texts, map.getInt());
+                String durationType = lookup(texts, map.getInt());
+                String from = lookup(texts, map.getInt());
+                String to = lookup(texts, map.getInt());
+                String name = readText(map);
+                passes.add(new Pass(id, name, passType, durationType, durationDays, from, to, LocalDate.ofEpochDay(validUntilDay)));
+            }
+            return Optional.of(new Snapshot(passes, version, savedAt));
+        }
+    }
+
+    private static String lookup(String[] texts, int code) {
+        return code == NULL_TEXT ? null : texts[code];
+    }
+
+    private static String readText(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL_TEXT) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // --- writing ---
+    private void write(List<Pass> passes, long version) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            int headerBytes = FIXED_HEADER_BYTES + source.length;
+            channel.position(headerBytes);
+            BodyWriter body = new BodyWriter(channel);
+            Map<String, Integer> codes = new HashMap<>();
+            List<String> texts = new ArrayList<>();
+            for (Pass pass : passes) {
+                body.ensure(28);
+                ByteBuffer out = body.buffer;
+                out.putInt(pass.getId());
+                out.putInt((int) pass.getValidUntilEpochDay());
+                out.putInt(pass.getDurationDays());
+                out.putInt(code(codes, texts, pass.getPassType()));
+                out.putInt(code(codes, texts, pass.getDurationType()));
+                out.putInt(code(codes, texts, pass.getSource()));
+                out.putInt(code(codes, texts, pass.getDestination()));
+                body.text(pass.getPassengerName());
+            }
+            long dictionaryOffset = headerBytes + body.position();
+            body.ensure(4);
+            body.buffer.putInt(texts.size());
+            for (String text : texts) {
+                body.text(text);
+            }
+            body.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(headerBytes);
+            header.put(MAGIC).putInt(FORMAT_VERSION).putLong(System.currentTimeMillis()).putLong(version).putInt(passes.size())
+                    .putLong(dictionaryOffset).putLong(body.position()).putInt((int) body.crc.getValue())
+                    .putInt(source.length).put(source).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(false);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int code(Map<String, Integer> codes, List<String> texts, String value) {
+        if (value == null) return NULL_TEXT;
+        return codes.computeIfAbsent(value, key -> {
+            texts.add(key);
+            return texts.size() - 1;
+        });
+    }
+
+    /** Buffers the body through one direct buffer, keeping a running CRC and length. */
+    private static final class BodyWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        private final CRC32 crc = new CRC32();
+        private long drained;
+
+        BodyWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void text(String value) throws IOException {
+            if (value == null) {
+                ensure(4);
+                buffer.putInt(NULL_TEXT);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(4);
+            buffer.putInt(bytes.length);
+            for (int offset = 0; offset < bytes.length; ) {
+                if (!buffer.hasRemaining()) flush();
+                int chunk = Math.min(bytes.length - offset, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+            }
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        long position() {
+            return drained + buffer.position();
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                drained += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package com.transportpass;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Answers "is pass X valid today from S to D" for gates and turnstiles without touching the database.
+ * Passes are held in an open-addressing table keyed by primitive id, with expiry as an epoch day and
+ * stations and pass types as small integer codes. Lookups are optimistic reads under a
+ * {@link StampedLock} and allocate nothing; writes arrive through {@link PassRepository.WriteListener}.
+ * An id that is not in the table is loaded from the database by {@link #validate}, and an id the
+ * database does not know either is answered {@link Verdict#UNKNOWN_PASS} for
+ * {@code validation.unknownPassMillis} without asking again. Rows read by a load never replace newer
+ * values reported by a write, and a pass deleted while a load is running is not brought back by it.
+ */
+public final class PassValidationIndex implements PassRepository.WriteListener {
+
+    public enum Verdict { VALID, EXPIRED, WRONG_ROUTE, UNKNOWN_PASS }
+
+    private static final Verdict[] VERDICTS = Verdict.values();
+    private static final int MISS = -1;
+    /** Station code of a pass with no route recorded; such passes are valid on any route. */
+    private static final int ANY_STATION = 0;
+    private static final int UNKNOWN_STATION = -1;
+    /** Beyond this many remembered unknown ids the whole set is dropped rather than scanned. */
+    private static final int MAX_UNKNOWN_IDS = 4_096;
+
+    private final PassRepository repository;
+    private final DataSource dataSource;
+    private final DbExecutor executor;
+    private final int fetchSize;
+    private final long unknownPassNanos;
+    private final StampedLock lock = new StampedLock();
+    /** Ids the database did not have, with when to ask again (System.nanoTime). */
+    private final ConcurrentHashMap<Integer, Long> unknownIds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> stationCodes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> typeCodes = new ConcurrentHashMap<>();
+    private volatile String[] typeNames = new String[16];
+    private Table table = new Table(1 << 10);
+    /** Loads from the database in progress, and ids deleted since the oldest of them began; both under the write lock. */
+    private int loading;
+    private final Set<Integer> deletedWhileLoading = new HashSet<>();
+
+    public PassValidationIndex(PassRepository repository, DataSource dataSource, DbExecutor executor, AppConfig config) {
+        this.repository = repository;
+        this.dataSource = dataSource;
+        this.executor = executor;
+        this.fetchSize = config.getInt("validation.fetchSize", 1_000);
+        this.unknownPassNanos = config.getMillis("validation.unknownPassMillis", 2_000).toNanos();
+        stationCodes.put("", ANY_STATION);
+        repository.addWriteListener(this);
+    }
+
+    /** Loads every pass; lookups answered meanwhile fall back to the database. Completes with the row count. */
+    public CompletableFuture<Integer> warm() {
+        return executor.submit("validation.warm", () -> {
+            int rows = 0;
+            beginLoad();
+            try (Connection conn = dataSource.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "SELECT id, pass_type, source, destination, valid_until FROM transport_pass",
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    ps.setFetchSize(PassExporter.streamingFetchSize(conn, fetchSize));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            put(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                                    rs.getDate(5).toLocalDate().toEpochDay(), false);
+                            rows++;
+                        }
+                    }
+                } finally {
+                    conn.rollback();
+                }
+            } finally {
+                endLoad();
+            }
+            return rows;
+        });
+    }
+
+    /** Forgets every pass and loads them again, for when the changes since the last sync cannot be had. */
+    public CompletableFuture<Integer> reload() {
+        long stamp = lock.writeLock();
+        try {
+            table = new Table(1 << 10);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return warm();
+    }
+
+    /**
+     * The verdict for an indexed pass, or {@code null} when {@code passId} is not in the index
+     * (use {@link #validate} to fall back to the database).
+     */
+    public Verdict lookup(int passId, String source, String destination) {
+        int code = probe(passId, stationCode(source), stationCode(destination));
+        return code == MISS ? null : VERDICTS[code];
+    }
+
+    /** Like {@link #lookup}, loading the pass from the database when it is not indexed yet. */
+    public CompletableFuture<Verdict> validate(int passId, String source, String destination) {
+        Verdict verdict = lookup(passId, source, destination);
+        if (verdict != null) {
+            return CompletableFuture.completedFuture(verdict);
+        }
+        Long askAgainAt = unknownIds.get(passId);
+        if (askAgainAt != null) {
+            if (System.nanoTime() - askAgainAt < 0) return CompletableFuture.completedFuture(Verdict.UNKNOWN_PASS);
+            unknownIds.remove(passId, askAgainAt);
+        }
+        beginLoad();
+        CompletableFuture<Optional<Pass>> found;
+        try {
+            found = repository.findById(passId);
+        } catch (RuntimeException ex) {
+            endLoad();
+            throw ex;
+        }
+        return found.whenComplete((pass, ex) -> {
+            if (ex == null) {
+                Pass values = pass.orElse(null);
+                if (values != null) {
+                    put(passId, values.getPassType(), values.getSource(), values.getDestination(),
+                            values.getValidUntilEpochDay(), false);
+                } else {
+                    rememberUnknown(passId);
+                }
+            }
+            endLoad();
+        }).thenApply(pass -> {
+            Verdict loaded = lookup(passId, source, destination);
+            return loaded != null ? loaded : Verdict.UNKNOWN_PASS;
+        });
+    }
+
+    /** The pass type of an indexed pass, or {@code null}. */
+    public String passType(int passId) {
+        long stamp = lock.readLock();
+        try {
+            int slot = table.find(passId);
+            return slot < 0 ? null : typeNames[table.types[slot]];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return table.size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void saved(int id, Pass values) {
+        put(id, values.getPassType(), values.getSource(), values.getDestination(), values.getValidUntilEpochDay(), true);
+        unknownIds.remove(id);
+    }
+
+    @Override
+    public void deleted(int id) {
+        long stamp = lock.writeLock();
+        try {
+            table.remove(id);
+            if (loading > 0) {
+                deletedWhileLoading.add(id);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // --- table access ---
+    private void beginLoad() {
+        long stamp = lock.writeLock();
+        try {
+            loading++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void endLoad() {
+        long stamp = lock.writeLock();
+        try {
+            if (--loading == 0) {
+                deletedWhileLoading.clear();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Remembered only while the id is still missing; a save that got in first wins. */
+    private void rememberUnknown(int id) {
+        if (unknownPassNanos <= 0) return;
+        long stamp = lock.writeLock();
+        try {
+            if (table.find(id) >= 0) return;
+            if (unknownIds.size() >= MAX_UNKNOWN_IDS) {
+                unknownIds.clear();
+            }
+            unknownIds.put(id, System.nanoTime() + unknownPassNanos);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * With {@code replace} false the row comes from a load: it does not overwrite a pass already in the
+     * table (a reported write is newer) or bring back one deleted since the load began.
+     */
+    private void put(int id, String passType, String source, String destination, long expiryDay, boolean replace) {
+        if (id <= 0) return;
+        int sourceCode = codeFor(source);
+        int destinationCode = codeFor(destination);
+        int typeCode = typeCodeFor(passType);
+        long stamp = lock.writeLock();
+        try {
+            if (replace) {
+                deletedWhileLoading.remove(id);
+            } else if (table.find(id) >= 0 || deletedWhileLoading.contains(id)) {
+                return;
+            }
+            if (table.size + 1 > table.ids.length / 2) {
+                table = table.resized(table.ids.length * 2);
+            }
+            table.put(id, (int) expiryDay, sourceCode, destinationCode, typeCode);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private int probe(int passId, int source, int destination) {
+        long stamp = lock.tryOptimisticRead();
+        int code = evaluate(table, passId, source, destination);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                code = evaluate(table, passId, source, destination);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return code;
+    }
+
+    /** May see a table mid-update; the caller discards the answer unless the stamp still validates. */
+    private static int evaluate(Table table, int passId, int source, int destination) {
+        int slot = table.find(passId);
+        if (slot < 0) return MISS;
+        if (table.expiry[slot] < Days.today()) return Verdict.EXPIRED.ordinal();
+        int passSource = table.sources[slot];
+        int passDestination = table.destinations[slot];
+        boolean anyRoute = passSource == ANY_STATION && passDestination == ANY_STATION;
+        if (!anyRoute && (passSource != source || passDestination != destination)) {
+            return Verdict.WRONG_ROUTE.ordinal();
+        }
+        return Verdict.VALID.ordinal();
+    }
+
+    private int stationCode(String station) {
+        if (station == null) return UNKNOWN_STATION;
+        Integer code = stationCodes.get(station);
+        return code == null ? UNKNOWN_STATION : code;
+    }
+
+    private synchronized int codeFor(String station) {
+        return stationCodes.computeIfAbsent(station == null ? "" : station, name -> stationCodes.size() + 1);
+    }
+
+    private synchronized int typeCodeFor(String passType) {
+        String type = passType == null ? "" : passType;
+        Integer code = typeCodes.get(type);
+        if (code != null) return code;
+        int next = typeCodes.size();
+        String[] names = typeNames;
+        if (next == names.length) {
+            names = Arrays.copyOf(names, names.length * 2);
+        }
+        names[next] = type;
+        typeNames = names;
+        typeCodes.put(type, next);
+        return next;
+    }
+
+    /** Linear-probing table in parallel primitive arrays; id 0 marks an empty slot. */
+    private static final class Table {
+        final int[] ids;
+        final int[] expiry;
+        final int[] sources;
+        final int[] destinations;
+        final short[] types;
+        int size;
+
+        Table(int capacity) {
+            ids = new int[capacity];
+            expiry = new int[capacity];
+            sources = new int[capacity];
+            destinations = new int[capacity];
+            types = new short[capacity];
+        }
+
+        int find(int id) {
+            int mask = ids.length - 1;
+            // bounded so a read racing a writer cannot spin forever; the stamp check discards it
+            for (int i = mix(id) & mask, n = 0; n < ids.length; i = (i + 1) & mask, n++) {
+                int key = ids[i];
+                if (key == id) return i;
+                if (key == 0) return -1;
+            }
+            return -1;
+        }
+
+        void put(int id, int expiryDay, int source, int destination, int type) {
+            int mask = ids.length - 1;
+            int i = mix(id) & mask;
+            while (ids[i] != 0 && ids[i] != id) i = (i + 1) & mask;
+            if (ids[i] == 0) size++;
+            ids[i] = id;
+            expiry[i] = expiryDay;
+            sources[i] = source;
+            destinations[i] = destination;
+            types[i] = (short) type;
+        }
+
+        void remove(int id) {
+            int slot = find(id);
+            if (slot < 0) return;
+            int mask = ids.length - 1;
+            ids[slot] = 0;
+            size--;
+            // shift later entries of the probe run back so lookups never stop at the hole
+            for (int i = (slot + 1) & mask; ids[i] != 0; i = (i + 1) & mask) {
+                int home = mix(ids[i]) & mask;
+                if (((i - home) & mask) >= ((i - slot) & mask)) {
+                    ids[slot] = ids[i];
+                    expiry[slot] = expiry[i];
+                    sources[slot] = sources[i];
+                    destinations[slot] = destinations[i];
+                    types[slot] = types[i];
+                    ids[i] = 0;
+                    slot = i;
+                }
+            }
+        }
+
+        Table resized(int capacity) {
+            Table bigger = new Table(capacity);
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != 0) {
+                    bigger.put(ids[i], expiry[i], sources[i], destinations[i], types[i]);
+                }
+            }
+            return bigger;
+        }
+
+        private static int mix(int id) {
+            int h = id * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
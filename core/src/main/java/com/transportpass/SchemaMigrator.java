@@ -0,0 +1,199 @@
+package com.transportpass;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Brings the database schema up to date with an ordered list of versioned migrations.
+ * Applied versions are recorded in {@code schema_version} with a checksum of their SQL, so a
+ * migration runs once and an up-to-date database costs a single lookup at startup. Editing a
+ * migration that has already been applied is reported as an error; add a new version instead.
+ */
+public final class SchemaMigrator {
+
+    /** One schema step. Its statements are applied in order and checksummed together. */
+    public record Migration(int version, String description, List<String> statements) {
+        public Migration(int version, String description, String... statements) {
+            this(version, description, List.of(statements));
+        }
+
+        long checksum() {
+            CRC32 crc = new CRC32();
+            statements.forEach(sql -> crc.update(sql.strip().getBytes(StandardCharsets.UTF_8)));
+            return crc.getValue();
+        }
+    }
+
+    public static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Baseline pass and user tables",
+                    """
+                    CREATE TABLE IF NOT EXISTS transport_pass (
+                        id INT AUTO_INCREMENT PRIMARY KEY,
+                        passenger_name VARCHAR(100) NOT NULL,
+                        pass_type VARCHAR(100) NOT NULL,
+                        duration_type VARCHAR(50) NOT NULL,
+                        duration_days INT NOT NULL,
+                        source VARCHAR(100),
+                        destination VARCHAR(100),
+                        valid_until DATE NOT NULL,
+                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                    )
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS auth_user (
+                        id INT AUTO_INCREMENT PRIMARY KEY,
+                        username VARCHAR(80) NOT NULL UNIQUE,
+                        password_hash VARCHAR(128) NOT NULL,
+                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                    )
+                    """),
+            new Migration(2, "Columns missing from pre-route databases",
+                    "ALTER TABLE transport_pass ADD COLUMN passenger_name VARCHAR(100) NOT NULL DEFAULT 'Unknown'",
+                    "ALTER TABLE transport_pass ADD COLUMN duration_type VARCHAR(50)",
+                    "ALTER TABLE transport_pass ADD COLUMN source VARCHAR(100)",
+                    "ALTER TABLE transport_pass ADD COLUMN destination VARCHAR(100)"),
+            new Migration(3, "Indexes for expiry ranges, type counts, name search and routes",
+                    "CREATE INDEX idx_pass_valid_until ON transport_pass (valid_until)",
+                    "CREATE INDEX idx_pass_type ON transport_pass (pass_type)",
+                    "CREATE INDEX idx_pass_passenger_name ON transport_pass (passenger_name)",
+                    "CREATE INDEX idx_pass_route ON transport_pass (source, destination)"),
+            new Migration(4, "Row versions, tombstones and a change sequence for incremental sync",
+                    "ALTER TABLE transport_pass ADD COLUMN row_version BIGINT NOT NULL DEFAULT 0",
+                    "ALTER TABLE transport_pass ADD COLUMN updated_at TIMESTAMP NULL DEFAULT NULL",
+                    "CREATE INDEX idx_pass_row_version ON transport_pass (row_version)",
+                    """
+                    CREATE TABLE IF NOT EXISTS pass_tombstone (
+                        pass_id INT PRIMARY KEY,
+                        row_version BIGINT NOT NULL,
+                        deleted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                    )
+                    """,
+                    "CREATE INDEX idx_tombstone_row_version ON pass_tombstone (row_version)",
+                    """
+                    CREATE TABLE IF NOT EXISTS pass_change_sequence (
+                        id INT PRIMARY KEY,
+                        last_version BIGINT NOT NULL,
+                        pruned_version BIGINT NOT NULL DEFAULT 0
+                    )
+                    """,
+                    "INSERT INTO pass_change_sequence (id, last_version) SELECT 1, 0 FROM DUAL"
+                            + " WHERE NOT EXISTS (SELECT 1 FROM pass_change_sequence)"));
+
+    private static final String VERSION_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS schema_version (
+                version INT PRIMARY KEY,
+                description VARCHAR(200) NOT NULL,
+                checksum BIGINT NOT NULL,
+                execution_millis INT NOT NULL,
+                applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """;
+
+    private static final Pattern ADD_COLUMN = Pattern.compile("(?is)^\\s*ALTER\\s+TABLE\\s+(\\w+)\\s+ADD\\s+COLUMN\\s+(\\w+)\\b.*");
+    private static final Pattern CREATE_INDEX = Pattern.compile("(?is)^\\s*CREATE\\s+INDEX\\s+(\\w+)\\s+ON\\s+(\\w+)\\b.*");
+
+    private final DataSource dataSource;
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(DataSource dataSource) {
+        this(dataSource, MIGRATIONS);
+    }
+
+    public SchemaMigrator(DataSource dataSource, List<Migration> migrations) {
+        this.dataSource = dataSource;
+        this.migrations = migrations.stream().sorted((a, b) -> Integer.compare(a.version(), b.version())).toList();
+    }
+
+    /** Applies every pending migration and returns the versions that ran (empty when already current). */
+    public List<Integer> migrate() throws SQLException {
+        List<Integer> applied = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection()) {
+            Map<Integer, Long> done = appliedVersions(conn);
+            for (Migration migration : migrations) {
+                Long checksum = done.get(migration.version());
+                if (checksum == null) {
+                    apply(conn, migration);
+                    applied.add(migration.version());
+                } else if (checksum != migration.checksum()) {
+                    throw new SQLException("Migration V" + migration.version() + " (" + migration.description()
+                            + ") was changed after it was applied; add a new migration instead");
+                }
+            }
+        }
+        return applied;
+    }
+
+    private static Map<Integer, Long> appliedVersions(Connection conn) throws SQLException {
+        Map<Integer, Long> versions = new HashMap<>();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(VERSION_TABLE_SQL);
+            try (ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+                while (rs.next()) {
+                    versions.put(rs.getInt(1), rs.getLong(2));
+                }
+            }
+        }
+        return versions;
+    }
+
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        long start = System.nanoTime();
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : migration.statements()) {
+                // databases created before versioning may already have these, and MySQL has no IF NOT EXISTS for them
+                if (alreadyPresent(conn, sql)) continue;
+                stmt.executeUpdate(sql);
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description, checksum, execution_millis) VALUES (?,?,?,?)")) {
+            ps.setInt(1, migration.version());
+            ps.setString(2, migration.description());
+            ps.setLong(3, migration.checksum());
+            ps.setInt(4, (int) ((System.nanoTime() - start) / 1_000_000));
+            ps.executeUpdate();
+        }
+    }
+
+    private static boolean alreadyPresent(Connection conn, String sql) throws SQLException {
+        Matcher column = ADD_COLUMN.matcher(sql);
+        if (column.matches()) {
+            DatabaseMetaData meta = conn.getMetaData();
+            try (ResultSet rs = meta.getColumns(conn.getCatalog(), conn.getSchema(),
+                    identifier(meta, column.group(1)), identifier(meta, column.group(2)))) {
+                return rs.next();
+            }
+        }
+        Matcher index = CREATE_INDEX.matcher(sql);
+        if (index.matches()) {
+            DatabaseMetaData meta = conn.getMetaData();
+            try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), conn.getSchema(),
+                    identifier(meta, index.group(2)), false, true)) {
+                while (rs.next()) {
+                    if (index.group(1).equalsIgnoreCase(rs.getString("INDEX_NAME"))) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String identifier(DatabaseMetaData meta, String name) throws SQLException {
+        if (meta.storesUpperCaseIdentifiers()) return name.toUpperCase(Locale.ROOT);
+        if (meta.storesLowerCaseIdentifiers()) return name.toLowerCase(Locale.ROOT);
+        return name;
+    }
+}
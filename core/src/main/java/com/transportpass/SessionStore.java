@@ -0,0 +1,66 @@
+package com.transportpass;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory sign-in sessions keyed by an unguessable token. A session lasts {@code ttl} from its
+ * last use, so an active counter stays signed in; expired sessions are swept out as new ones are
+ * issued. Tokens do not survive a restart.
+ */
+public final class SessionStore {
+
+    public record Session(String token, String username, long expiresAtNanos) {
+        boolean expired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final long ttlNanos;
+    private volatile long nextSweepNanos;
+
+    public SessionStore(Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+        this.nextSweepNanos = System.nanoTime() + ttlNanos;
+    }
+
+    public Session issue(String username) {
+        long now = System.nanoTime();
+        if (now - nextSweepNanos >= 0) {
+            nextSweepNanos = now + ttlNanos;
+            sessions.values().removeIf(session -> session.expired(now));
+        }
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        Session session = new Session(token, username, now + ttlNanos);
+        sessions.put(token, session);
+        return session;
+    }
+
+    /** The live session for {@code token}, extending it; empty when unknown or expired. */
+    public Optional<Session> touch(String token) {
+        if (token == null) return Optional.empty();
+        long now = System.nanoTime();
+        Session session = sessions.computeIfPresent(token, (key, current) ->
+                current.expired(now) ? null : new Session(key, current.username(), now + ttlNanos));
+        return Optional.ofNullable(session);
+    }
+
+    public void revoke(String token) {
+        if (token != null) sessions.remove(token);
+    }
+
+    public void revokeUser(String username) {
+        sessions.values().removeIf(session -> session.username().equals(username));
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+}
@@ -0,0 +1,104 @@
+package com.transportpass;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Where passes are stored, chosen with {@code storage.backend}. Both backends run the same
+ * {@link SchemaMigrator} migrations and the same SQL, so everything above the
+ * {@link ConnectionPool} is unaware of which one is in use.
+ */
+public enum StorageBackend {
+
+    /** A MySQL server at {@code db.url}, signed in to as {@code db.user} (required, no default); the default backend. */
+    MYSQL("MySQL") {
+        @Override
+        String driverClass(AppConfig config) {
+            return config.get("db.driver", "com.mysql.cj.jdbc.Driver");
+        }
+
+        @Override
+        String url(AppConfig config) {
+            return config.get("db.url", "jdbc:mysql://localhost:3306/transport_db");
+        }
+
+        @Override
+        String user(AppConfig config) {
+            return config.require("db.user");
+        }
+
+        @Override
+        String password(AppConfig config) {
+            // password-less local accounts are fine, but the key has to be there
+            return config.require("db.password", true);
+        }
+    },
+
+    /**
+     * An H2 database in a local file at {@code storage.embedded.path}, for standalone stations and
+     * tests. It runs in MySQL mode with case-insensitive text, matching MySQL's default collation
+     * for searches, sorting and unique user names. A path of {@code mem:name} keeps it in memory.
+     */
+    EMBEDDED("embedded H2") {
+        @Override
+        String driverClass(AppConfig config) {
+            return "org.h2.Driver";
+        }
+
+        @Override
+        String url(AppConfig config) {
+            String path = config.get("storage.embedded.path", "data/transport-pass");
+            String location = path.startsWith("mem:")
+                    ? path + ";DB_CLOSE_DELAY=-1"
+                    : "file:" + Path.of(path).toAbsolutePath();
+            return "jdbc:h2:" + location + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE";
+        }
+
+        @Override
+        String user(AppConfig config) {
+            return config.get("storage.embedded.user", "sa");
+        }
+
+        @Override
+        String password(AppConfig config) {
+            return config.get("storage.embedded.password", "");
+        }
+    };
+
+    private final String displayName;
+
+    StorageBackend(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public static StorageBackend fromConfig(AppConfig config) {
+        String value = config.get("storage.backend", "mysql");
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "mysql" -> MYSQL;
+            case "embedded", "h2" -> EMBEDDED;
+            default -> throw new IllegalStateException("Setting storage.backend must be mysql or embedded, was '" + value + "'");
+        };
+    }
+
+    /** Registers the JDBC driver; fails when its jar is not on the classpath. */
+    public void loadDriver(AppConfig config) throws ClassNotFoundException {
+        Class.forName(driverClass(config));
+    }
+
+    /** Names the database this backend connects to, so local caches of one are not shown for another. */
+    public String identity(AppConfig config) {
+        return name() + " " + url(config) + " " + user(config);
+    }
+
+    public String displayName() {
+        return displayName;
+    }
+
+    abstract String driverClass(AppConfig config);
+
+    abstract String url(AppConfig config);
+
+    abstract String user(AppConfig config);
+
+    abstract String password(AppConfig config);
+}
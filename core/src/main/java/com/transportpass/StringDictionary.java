@@ -0,0 +1,33 @@
+package com.transportpass;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical instances for low-cardinality text such as pass types, durations and station names,
+ * so a million rows share a handful of String objects. Past {@code capacity} distinct values new
+ * strings are returned as-is, which keeps free-text input from growing the dictionary forever.
+ */
+public final class StringDictionary {
+
+    public static final StringDictionary SHARED = new StringDictionary(16_384);
+
+    private final ConcurrentHashMap<String, String> values = new ConcurrentHashMap<>();
+    private final int capacity;
+
+    public StringDictionary(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public String intern(String value) {
+        if (value == null) return null;
+        String canonical = values.get(value);
+        if (canonical != null) return canonical;
+        if (values.size() >= capacity) return value;
+        canonical = values.putIfAbsent(value, value);
+        return canonical == null ? value : canonical;
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
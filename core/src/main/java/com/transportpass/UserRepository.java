@@ -0,0 +1,58 @@
+package com.transportpass;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/** Asynchronous access to the auth_user table. */
+public final class UserRepository {
+
+    private final DataSource dataSource;
+    private final DbExecutor executor;
+
+    public UserRepository(DataSource dataSource, DbExecutor executor) {
+        this.dataSource = dataSource;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Optional<String>> findPasswordHash(String username) {
+        return executor.submitCancellable("user.findHash", () -> {
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement ps = conn.prepareStatement("SELECT password_hash FROM auth_user WHERE username=?")) {
+                ps.setString(1, username);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? Optional.of(rs.getString("password_hash")) : Optional.empty();
+                }
+            }
+        });
+    }
+
+    /** Replaces the stored hash, e.g. when an old-format hash is upgraded at sign-in. */
+    public CompletableFuture<Void> updatePasswordHash(String username, String passwordHash) {
+        return executor.submit("user.updateHash", () -> {
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement ps = conn.prepareStatement("UPDATE auth_user SET password_hash=? WHERE username=?")) {
+                ps.setString(1, passwordHash);
+                ps.setString(2, username);
+                ps.executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    /** Completes exceptionally with {@link java.sql.SQLIntegrityConstraintViolationException} when the name is taken. */
+    public CompletableFuture<Void> create(String username, String passwordHash) {
+        return executor.submit("user.create", () -> {
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement ps = conn.prepareStatement("INSERT INTO auth_user (username, password_hash) VALUES (?, ?)")) {
+                ps.setString(1, username);
+                ps.setString(2, passwordHash);
+                ps.executeUpdate();
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,73 @@
+package com.transportpass;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import static com.transportpass.TestDatabase.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuthServiceTest {
+
+    private TestDatabase db;
+    private UserRepository users;
+    private AuthService auth;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = TestDatabase.migrated("auth.pbkdf2Iterations=1000", "auth.hashThreads=1");
+        users = new UserRepository(db.pool, db.executor);
+        auth = new AuthService(users, db.config);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        auth.close();
+        db.close();
+    }
+
+    @Test
+    void signsInARegisteredUser() throws Exception {
+        await(auth.register("asha", "s3cret"));
+
+        AuthService.LoginResult result = await(auth.login("asha", "s3cret"));
+        assertEquals(AuthService.Outcome.SUCCESS, result.outcome());
+        assertEquals(Optional.of("asha"), auth.authenticate(result.session().token()));
+        assertEquals(AuthService.Outcome.WRONG_PASSWORD, await(auth.login("asha", "guess")).outcome());
+
+        auth.logout(result.session().token());
+        assertTrue(auth.authenticate(result.session().token()).isEmpty());
+    }
+
+    @Test
+    void anUnknownNameIsNotRemembered() throws Exception {
+        assertEquals(AuthService.Outcome.UNKNOWN_USER, await(auth.login("ravi", "s3cret")).outcome());
+
+        // created behind the service's back, e.g. by another counter
+        await(users.create("ravi", new PasswordHasher(1_000).hash("s3cret")));
+        assertEquals(AuthService.Outcome.SUCCESS, await(auth.login("ravi", "s3cret")).outcome());
+    }
+
+    @Test
+    void upgradesALegacyHashAtSignIn() throws Exception {
+        String legacy = HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest("s3cret".getBytes(StandardCharsets.UTF_8)));
+        await(users.create("meera", legacy));
+
+        assertEquals(AuthService.Outcome.SUCCESS, await(auth.login("meera", "s3cret")).outcome());
+
+        String stored = legacy;
+        for (int i = 0; i < 100 && stored.equals(legacy); i++) {
+            Thread.sleep(20);
+            stored = await(users.findPasswordHash("meera")).orElseThrow();
+        }
+        assertTrue(stored.startsWith("pbkdf2$1000$"), stored);
+        assertEquals(AuthService.Outcome.SUCCESS, await(auth.login("meera", "s3cret")).outcome());
+    }
+}
@@ -0,0 +1,72 @@
+package com.transportpass;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPoolTest {
+
+    private TestDatabase db;
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create("pool.maxSize=1", "pool.statementCacheSize=1");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        db.close();
+    }
+
+    @Test
+    void reusesAPreparedStatementOnceItIsClosed() throws Exception {
+        PreparedStatement first;
+        try (Connection conn = db.pool.getConnection()) {
+            first = conn.prepareStatement("SELECT 1");
+            first.close();
+            assertSame(first, conn.prepareStatement("SELECT 1"));
+        }
+        assertEquals(1, db.pool.metrics().statementCacheHits());
+    }
+
+    @Test
+    void aStatementPushedOutOfTheCacheStaysUsableUntilClosed() throws Exception {
+        try (Connection conn = db.pool.getConnection()) {
+            PreparedStatement open = conn.prepareStatement("SELECT ?");
+            conn.prepareStatement("SELECT 2").close();
+
+            open.setInt(1, 7);
+            try (ResultSet rs = open.executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals(7, rs.getInt(1));
+            }
+            open.close();
+            assertTrue(open.isClosed());
+        }
+    }
+
+    @Test
+    void givesConnectionsBackAsTheyWereOpened() throws Exception {
+        int isolation;
+        try (Connection conn = db.pool.getConnection()) {
+            isolation = conn.getTransactionIsolation();
+            conn.setReadOnly(true);
+            conn.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+            conn.setAutoCommit(false);
+        }
+        try (Connection conn = db.pool.getConnection()) {
+            assertFalse(conn.isReadOnly());
+            assertEquals(isolation, conn.getTransactionIsolation());
+            assertTrue(conn.getAutoCommit());
+        }
+    }
+}
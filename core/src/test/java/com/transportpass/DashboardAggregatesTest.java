@@ -0,0 +1,102 @@
+package com.transportpass;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DashboardAggregatesTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2030, 3, 10);
+
+    private final ObservableList<Pass> passes = FXCollections.observableArrayList();
+
+    @BeforeEach
+    void setUp() {
+        setDate(TODAY, LocalTime.of(23, 59));
+    }
+
+    @AfterEach
+    void tearDown() {
+        Days.setClock(null);
+    }
+
+    @Test
+    void countsActiveAndExpiringPassesAndTypes() {
+        passes.addAll(pass("Bus", -1), pass("Bus", 0), pass("Metro", 5), pass("Metro", 6), pass("Metro", 40));
+        DashboardAggregates aggregates = new DashboardAggregates(passes);
+
+        assertEquals(5, aggregates.total());
+        assertEquals(4, aggregates.active());
+        assertEquals(2, aggregates.expiringSoon());
+        assertEquals(Map.of("Bus", 2, "Metro", 3), aggregates.countByType());
+
+        passes.remove(1);
+        passes.add(pass("Train", 2));
+        assertEquals(4, aggregates.active());
+        assertEquals(2, aggregates.expiringSoon());
+        assertEquals(Map.of("Bus", 1, "Metro", 3, "Train", 1), aggregates.countByType());
+    }
+
+    @Test
+    void rollsOverAtMidnight() {
+        passes.addAll(pass("Bus", 0), pass("Bus", 5), pass("Bus", 6), pass("Bus", 30));
+        DashboardAggregates aggregates = new DashboardAggregates(passes);
+        assertEquals(4, aggregates.active());
+        assertEquals(2, aggregates.expiringSoon());
+
+        setDate(TODAY.plusDays(1), LocalTime.of(0, 1));
+        // the pass due today has expired, the one six days out has entered the window
+        assertEquals(3, aggregates.active());
+        assertEquals(2, aggregates.expiringSoon());
+
+        setDate(TODAY.plusDays(10), LocalTime.NOON);
+        assertEquals(1, aggregates.active());
+        assertEquals(0, aggregates.expiringSoon());
+    }
+
+    @Test
+    void rebuildsWhenTheClockGoesBack() {
+        passes.addAll(pass("Bus", 0), pass("Bus", 6));
+        DashboardAggregates aggregates = new DashboardAggregates(passes);
+        setDate(TODAY.plusDays(3), LocalTime.NOON);
+        assertEquals(1, aggregates.active());
+
+        setDate(TODAY, LocalTime.NOON);
+        assertEquals(2, aggregates.active());
+        assertEquals(1, aggregates.expiringSoon());
+    }
+
+    @Test
+    void followsRowEdits() {
+        Pass pass = pass("Bus", 30);
+        passes.add(pass);
+        DashboardAggregates aggregates = new DashboardAggregates(passes);
+        pass.setObserver(aggregates);
+
+        pass.setValidUntilDate(TODAY.plusDays(2));
+        pass.setPassType("Metro");
+        assertEquals(1, aggregates.expiringSoon());
+        assertEquals(Map.of("Metro", 1), aggregates.countByType());
+
+        pass.setValidUntilDate(TODAY.minusDays(2));
+        assertEquals(0, aggregates.active());
+    }
+
+    private static void setDate(LocalDate date, LocalTime time) {
+        Days.setClock(Clock.fixed(date.atTime(time).toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    private static Pass pass(String type, int daysLeft) {
+        return new Pass(0, "Asha", type, "Monthly", 30, null, null, TODAY.plusDays(daysLeft));
+    }
+}
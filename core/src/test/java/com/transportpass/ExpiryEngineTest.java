@@ -0,0 +1,123 @@
+package com.transportpass;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpiryEngineTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2030, 3, 10);
+
+    private final ObservableList<Pass> passes = FXCollections.observableArrayList();
+    private final List<ExpiryEngine.Transitions> reported = new ArrayList<>();
+    private ExpiryEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        setDate(TODAY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Days.setClock(null);
+    }
+
+    @Test
+    void reportsPassesCrossingADayBoundary() {
+        Pass dueToday = pass(0);
+        Pass sixDaysOut = pass(6);
+        Pass farOff = pass(30);
+        passes.addAll(pass(-3), dueToday, sixDaysOut, farOff);
+        start();
+        assertEquals(3, engine.pending());
+
+        setDate(TODAY.plusDays(1));
+        engine.advance();
+
+        ExpiryEngine.Transitions transitions = reported.get(0);
+        assertEquals(TODAY.toEpochDay(), transitions.from());
+        assertEquals(TODAY.toEpochDay() + 1, transitions.to());
+        assertEquals(List.of(dueToday), transitions.expired());
+        assertEquals(List.of(sixDaysOut), transitions.enteredExpiringWindow());
+        assertEquals(2, engine.pending());
+    }
+
+    @Test
+    void staysQuietWhileTheDateIsUnchanged() {
+        passes.add(pass(0));
+        start();
+
+        engine.advance();
+        assertTrue(reported.isEmpty());
+    }
+
+    @Test
+    void aPassThatEntersAndLeavesTheWindowInOneJumpIsOnlyExpired() {
+        Pass sixDaysOut = pass(6);
+        passes.add(sixDaysOut);
+        start();
+
+        setDate(TODAY.plusDays(10));
+        engine.advance();
+
+        assertEquals(List.of(sixDaysOut), reported.get(0).expired());
+        assertEquals(List.of(), reported.get(0).enteredExpiringWindow());
+    }
+
+    @Test
+    void tracksListChangesAndRowEdits() {
+        Pass edited = pass(30);
+        passes.add(edited);
+        start();
+        edited.setObserver(engine);
+        Pass added = pass(6);
+        passes.add(added);
+
+        edited.setValidUntilDate(TODAY.plusDays(6));
+        passes.remove(added);
+
+        setDate(TODAY.plusDays(1));
+        engine.advance();
+        assertEquals(List.of(edited), reported.get(0).enteredExpiringWindow());
+    }
+
+    @Test
+    void rebuildsWhenTheClockGoesBack() {
+        passes.add(pass(1));
+        start();
+        setDate(TODAY.plusDays(3));
+        engine.advance();
+        assertEquals(0, engine.pending());
+
+        setDate(TODAY);
+        engine.advance();
+
+        assertTrue(reported.get(1).isEmpty());
+        assertTrue(reported.get(1).to() < reported.get(1).from());
+        assertEquals(1, engine.pending());
+    }
+
+    private void start() {
+        engine = new ExpiryEngine(passes);
+        engine.addListener(reported::add);
+    }
+
+    private static void setDate(LocalDate date) {
+        Days.setClock(Clock.fixed(date.atTime(0, 0, 1).toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    private static Pass pass(int daysLeft) {
+        return new Pass(0, "Asha", "Bus", "Monthly", 30, null, null, TODAY.plusDays(daysLeft));
+    }
+}
@@ -0,0 +1,93 @@
+package com.transportpass;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilterPipelineTest {
+
+    private final ObservableList<Pass> passes = FXCollections.observableArrayList();
+    private final BlockingQueue<FilterPipeline.Result> delivered = new LinkedBlockingQueue<>();
+    private PassSearchIndex index;
+    private FilterPipeline pipeline;
+    private Pass asha;
+    private Pass ravi;
+
+    @BeforeEach
+    void setUp() {
+        LocalDate expiry = Days.todayDate().plusDays(30);
+        asha = new Pass(1, "Asha", "Bus", "Monthly", 30, null, null, expiry);
+        ravi = new Pass(2, "Ravi", "Metro", "Monthly", 30, null, null, expiry);
+        passes.addAll(asha, ravi);
+        index = new PassSearchIndex(passes);
+        pipeline = new FilterPipeline(index, Runnable::run, delivered::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.close();
+    }
+
+    @Test
+    void deliversTheMatchesOfASearch() throws Exception {
+        pipeline.submit("asha", PassQuery.Status.ALL);
+
+        FilterPipeline.Result result = next();
+        assertEquals("asha", result.query());
+        assertTrue(index.matches(result.matches(), asha));
+        assertFalse(index.matches(result.matches(), ravi));
+    }
+
+    @Test
+    void aClearedSearchMatchesEverything() throws Exception {
+        pipeline.submit("", PassQuery.Status.ALL);
+
+        assertNull(next().matches());
+    }
+
+    @Test
+    void skipsAnUnchangedResultUntilInvalidated() throws Exception {
+        pipeline.submit("metro", PassQuery.Status.ALL);
+        assertNotNull(next());
+
+        pipeline.submit("ravi", PassQuery.Status.ALL);
+        assertNull(delivered.poll(300, TimeUnit.MILLISECONDS));
+
+        pipeline.invalidate();
+        pipeline.submit("ravi", PassQuery.Status.ALL);
+        assertEquals("ravi", next().query());
+    }
+
+    @Test
+    void theLastSearchOfABurstWins() throws Exception {
+        for (String query : new String[]{"a", "as", "ash", "asha", "ravi"}) {
+            pipeline.submit(query, PassQuery.Status.ALL);
+        }
+
+        FilterPipeline.Result last;
+        do {
+            last = next();
+        } while (!last.query().equals("ravi"));
+        assertTrue(index.matches(last.matches(), ravi));
+        assertFalse(index.matches(last.matches(), asha));
+    }
+
+    private FilterPipeline.Result next() throws InterruptedException {
+        FilterPipeline.Result result = delivered.poll(5, TimeUnit.SECONDS);
+        assertNotNull(result, "no result delivered");
+        return result;
+    }
+}
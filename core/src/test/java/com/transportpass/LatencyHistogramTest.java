@@ -0,0 +1,69 @@
+package com.transportpass;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void isEmptyUntilSomethingIsRecorded() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentileMillis(99));
+        assertEquals(0, histogram.meanMillis());
+    }
+
+    @Test
+    void percentilesAreWithinTheBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1_000; millis++) {
+            histogram.recordNanos(millis * 1_000_000L);
+        }
+
+        assertEquals(1_000, histogram.count());
+        assertEquals(500.5, histogram.meanMillis(), 0.001);
+        assertEquals(1_000, histogram.maxMillis(), 0.001);
+        for (double percentile : new double[]{50, 90, 99}) {
+            double reported = histogram.percentileMillis(percentile);
+            // upper bucket bounds: never below the true value, at most one sub-bucket (12.5%) above it
+            assertTrue(reported >= percentile * 10 && reported <= percentile * 10 * 1.125,
+                    "p" + percentile + " = " + reported);
+        }
+        assertEquals(1_000, histogram.percentileMillis(100), 0.001);
+    }
+
+    @Test
+    void coversMicrosecondsToHours() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(3);
+        for (int i = 0; i < 10_000; i++) {
+            histogram.recordNanos((long) Math.exp(random.nextDouble() * Math.log(3_600e9)));
+        }
+        histogram.recordNanos(-5);
+
+        double previous = 0;
+        for (double percentile = 1; percentile <= 100; percentile++) {
+            double value = histogram.percentileMillis(percentile);
+            assertTrue(value >= previous, "percentiles must not decrease");
+            previous = value;
+        }
+        assertEquals(histogram.maxMillis(), histogram.percentileMillis(100), 0.001);
+    }
+
+    @Test
+    void resetForgetsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(5_000_000);
+        histogram.reset();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.maxMillis());
+        histogram.recordNanos(2_000_000);
+        assertEquals(2, histogram.maxMillis(), 0.001);
+    }
+}
@@ -0,0 +1,112 @@
+package com.transportpass;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.transportpass.TestDatabase.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PassCsvImporterTest {
+
+    private static final String HEADER = "passenger_name,pass_type,duration_type,source,destination,valid_until";
+
+    @TempDir
+    Path dir;
+
+    private TestDatabase db;
+    private PassRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = TestDatabase.migrated("import.chunkSize=3");
+        repository = new PassRepository(db.pool, db.executor);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        db.close();
+    }
+
+    @Test
+    void capsChunksAtThePlaceholderLimit() {
+        assertEquals(65_535 / 8, PassCsvImporter.chunkSize(1_000_000));
+        assertEquals(500, PassCsvImporter.chunkSize(500));
+        assertEquals(1, PassCsvImporter.chunkSize(0));
+    }
+
+    @Test
+    void importsInChunksAndStampsEachChunkWithOneVersion() throws Exception {
+        List<String> lines = new ArrayList<>(List.of(HEADER));
+        for (int i = 1; i <= 7; i++) {
+            lines.add("Passenger " + i + ",Bus,Monthly,Andheri,Dadar,2030-01-0" + i);
+        }
+        Path csv = write(lines);
+        List<PassCsvImporter.Progress> progress = new ArrayList<>();
+
+        PassCsvImporter.Result result = await(new PassCsvImporter(db.pool, db.executor, db.config).importFile(csv, progress::add));
+
+        assertEquals(7, result.imported());
+        assertEquals(0, result.rejected());
+        assertNull(result.rejectFile());
+        // two full chunks of three, then the last row
+        assertEquals(List.of(3L, 6L, 7L), progress.stream().map(PassCsvImporter.Progress::imported).toList());
+        PassRepository.Directory directory = await(repository.loadDirectory());
+        assertEquals(7, directory.passes().size());
+        assertEquals("Bus Monthly", directory.passes().get(0).getPassType());
+        assertEquals(3, directory.version());
+        assertEquals(3, SchemaMigratorTest.count(db, "SELECT COUNT(DISTINCT row_version) FROM transport_pass"));
+    }
+
+    @Test
+    void rejectsInvalidRowsAndRetriesARefusedChunkRowByRow() throws Exception {
+        String tooLong = "x".repeat(150);
+        Path csv = write(List.of(HEADER,
+                "Asha,Bus,Monthly,Andheri,Dadar,2030-01-01",
+                ",Bus,Monthly,Andheri,Dadar,2030-01-01",
+                tooLong + ",Metro,Weekly,Andheri,Dadar,2030-01-01",
+                "Ravi,Train,Daily,Thane,Kurla,2030-01-01",
+                "Meera,Bus,Fortnightly,Thane,Kurla,2030-01-01",
+                "Kiran,Bus,Yearly,Thane,Kurla,not-a-date"));
+
+        PassCsvImporter.Result result = await(new PassCsvImporter(db.pool, db.executor, db.config).importFile(csv, p -> { }));
+
+        assertEquals(2, result.imported());
+        assertEquals(4, result.rejected());
+        assertEquals(PassCsvImporter.rejectFileFor(csv), result.rejectFile());
+        List<String> rejects = Files.readAllLines(result.rejectFile());
+        assertEquals(HEADER + ",reject_reason", rejects.get(0));
+        assertTrue(rejects.get(1).contains("Passenger name cannot be empty."), rejects.get(1));
+        assertTrue(rejects.stream().anyMatch(line -> line.startsWith(tooLong)), "row refused by the database");
+        assertTrue(rejects.stream().anyMatch(line -> line.contains("Unknown duration: Fortnightly.")));
+        assertTrue(rejects.stream().anyMatch(line -> line.contains("Invalid valid_until date: not-a-date.")));
+        List<String> names = await(repository.loadDirectory()).passes().stream().map(Pass::getPassengerName).toList();
+        assertEquals(List.of("Asha", "Ravi"), names);
+    }
+
+    @Test
+    void readsQuotedFieldsWithCommasAndLineBreaks() throws Exception {
+        Path csv = write(List.of(HEADER, "\"Shah, Asha \"\"A\"\"\",Bus,Monthly,\"Andheri\nWest\",Dadar,2030-01-01"));
+
+        PassCsvImporter.Result result = await(new PassCsvImporter(db.pool, db.executor, db.config).importFile(csv, p -> { }));
+
+        assertEquals(1, result.imported());
+        Pass pass = await(repository.loadDirectory()).passes().get(0);
+        assertEquals("Shah, Asha \"A\"", pass.getPassengerName());
+        assertEquals("Andheri\nWest", pass.getSource());
+    }
+
+    private Path write(List<String> lines) throws Exception {
+        Path csv = dir.resolve("passes.csv");
+        Files.write(csv, lines);
+        return csv;
+    }
+}
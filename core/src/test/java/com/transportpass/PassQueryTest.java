@@ -0,0 +1,145 @@
+package com.transportpass;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static com.transportpass.TestDatabase.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Runs the SQL that {@link PassQuery} builds against the embedded database. */
+class PassQueryTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2030, 3, 10);
+    private static final String[] NAMES = {"Asha", "asha", "Ravi", "Meera", "Kiran"};
+    private static final String[] TYPES = {"Bus", "Metro", "Train"};
+    private static final String[] STATIONS = {null, "Andheri", "Dadar", "Thane"};
+
+    private TestDatabase db;
+    private PassRepository repository;
+    private final List<Pass> passes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = TestDatabase.migrated();
+        repository = new PassRepository(db.pool, db.executor);
+        Random random = new Random(11);
+        for (int i = 0; i < 60; i++) {
+            Pass pass = new Pass(0, NAMES[random.nextInt(NAMES.length)], TYPES[random.nextInt(TYPES.length)],
+                    random.nextBoolean() ? "Monthly" : "weekly", 30, STATIONS[random.nextInt(STATIONS.length)],
+                    STATIONS[random.nextInt(STATIONS.length)], TODAY.plusDays(random.nextInt(21) - 10));
+            pass.setId(await(repository.insert(pass)));
+            passes.add(pass);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        db.close();
+    }
+
+    @Test
+    void filtersByStatus() throws Exception {
+        assertEquals(expected(pass -> !pass.getValidUntilDate().isBefore(TODAY)), ids(query("", PassQuery.Status.ACTIVE)));
+        assertEquals(expected(pass -> pass.getValidUntilDate().isBefore(TODAY)), ids(query("", PassQuery.Status.EXPIRED)));
+        assertEquals(expected(pass -> true), ids(query("", PassQuery.Status.ALL)));
+    }
+
+    @Test
+    void searchesTextFieldsCaseInsensitively() throws Exception {
+        assertEquals(expected(pass -> pass.getPassengerName().equalsIgnoreCase("asha")), ids(query("ASHA", PassQuery.Status.ALL)));
+        assertEquals(expected(pass -> "Thane".equals(pass.getSource()) || "Thane".equals(pass.getDestination())),
+                ids(query("than", PassQuery.Status.ALL)));
+        assertEquals(expected(pass -> pass.getPassType().equals("Metro") && pass.getValidUntilDate().isBefore(TODAY)),
+                ids(query("metro", PassQuery.Status.EXPIRED)));
+    }
+
+    @Test
+    void searchesStatusWords() throws Exception {
+        assertEquals(expected(pass -> pass.getValidUntilDate().isBefore(TODAY)), ids(query("expired", PassQuery.Status.ALL)));
+        assertEquals(expected(pass -> pass.getValidUntilDate().equals(TODAY)), ids(query("expires today", PassQuery.Status.ALL)));
+        assertEquals(expected(pass -> days(pass) >= 1 && days(pass) <= 5), ids(query("expiring", PassQuery.Status.ALL)));
+        assertEquals(expected(pass -> days(pass) > 5), ids(query("active", PassQuery.Status.ALL)));
+    }
+
+    @Test
+    void escapesLikeWildcards() throws Exception {
+        assertEquals(List.of(), ids(query("%", PassQuery.Status.ALL)));
+        assertEquals(List.of(), ids(query("a_h", PassQuery.Status.ALL)));
+    }
+
+    @Test
+    void keysetPagesVisitEveryRowOnceInSortOrder() throws Exception {
+        for (PassQuery.SortColumn column : PassQuery.SortColumn.values()) {
+            for (boolean ascending : new boolean[]{true, false}) {
+                PassQuery query = new PassQuery("", PassQuery.Status.ALL, column, ascending);
+                List<Integer> paged = new ArrayList<>();
+                PassQuery.Anchor anchor = null;
+                PassRepository.Page page;
+                do {
+                    page = await(repository.findPage(query, anchor, 0, 7));
+                    page.rows().forEach(pass -> paged.add(pass.getId()));
+                    anchor = page.last();
+                } while (!page.rows().isEmpty());
+
+                assertEquals(sorted(column, ascending), paged, column + (ascending ? " asc" : " desc"));
+            }
+        }
+    }
+
+    private PassQuery query(String search, PassQuery.Status status) {
+        return new PassQuery(search, status, PassQuery.SortColumn.ID, true);
+    }
+
+    private List<Integer> ids(PassQuery query) throws Exception {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT id FROM transport_pass" + query.where(params, TODAY) + query.orderBy();
+        List<Integer> ids = new ArrayList<>();
+        try (Connection conn = db.pool.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    private List<Integer> expected(Predicate<Pass> filter) {
+        return passes.stream().filter(filter).map(Pass::getId).toList();
+    }
+
+    private List<Integer> sorted(PassQuery.SortColumn column, boolean ascending) {
+        Comparator<Pass> order = switch (column) {
+            case ID -> Comparator.comparingInt(Pass::getId);
+            case PASSENGER_NAME -> text(Pass::getPassengerName);
+            case PASS_TYPE -> text(Pass::getPassType);
+            case DURATION_TYPE -> text(Pass::getDurationType);
+            case SOURCE -> text(Pass::getSource);
+            case DESTINATION -> text(Pass::getDestination);
+            case VALID_UNTIL -> Comparator.comparing(Pass::getValidUntilDate);
+        };
+        order = order.thenComparingInt(Pass::getId);
+        return passes.stream().sorted(ascending ? order : order.reversed()).map(Pass::getId).toList();
+    }
+
+    private static Comparator<Pass> text(Function<Pass, String> field) {
+        return Comparator.comparing(pass -> field.apply(pass) == null ? "" : field.apply(pass), String.CASE_INSENSITIVE_ORDER);
+    }
+
+    private static long days(Pass pass) {
+        return pass.getValidUntilEpochDay() - TODAY.toEpochDay();
+    }
+}
@@ -0,0 +1,125 @@
+package com.transportpass;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.transportpass.TestDatabase.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PassRepositoryTest {
+
+    private static final LocalDate ISSUED = LocalDate.of(2030, 1, 1);
+
+    private TestDatabase db;
+    private PassRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = TestDatabase.migrated();
+        repository = new PassRepository(db.pool, db.executor);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        db.close();
+    }
+
+    @Test
+    void loadsEveryPassWithTheCurrentVersion() throws Exception {
+        int first = await(repository.insert(pass("Asha", "Andheri")));
+        int second = await(repository.insert(pass("Ravi", "Dadar")));
+
+        PassRepository.Directory directory = await(repository.loadDirectory());
+
+        assertEquals(List.of(first, second), directory.passes().stream().map(Pass::getId).toList());
+        assertEquals("Asha", directory.passes().get(0).getPassengerName());
+        assertEquals(ISSUED.plusDays(30), directory.passes().get(0).getValidUntilDate());
+        assertEquals(2, directory.version());
+        assertEquals(directory.version(), await(repository.changeVersion()));
+    }
+
+    @Test
+    void reportsOnlyWhatChangedSinceAVersion() throws Exception {
+        int kept = await(repository.insert(pass("Asha", "Andheri")));
+        int edited = await(repository.insert(pass("Ravi", "Dadar")));
+        int removed = await(repository.insert(pass("Meera", "Bandra")));
+        long since = await(repository.loadDirectory()).version();
+
+        assertTrue(await(repository.update(edited, pass("Ravi Kumar", "Dadar"))));
+        assertTrue(await(repository.delete(removed)));
+        int added = await(repository.insert(pass("Kiran", "Thane")));
+
+        PassRepository.Changes changes = await(repository.findChanges(since));
+        assertEquals(List.of(edited, added), changes.saved().stream().map(Pass::getId).toList());
+        assertEquals("Ravi Kumar", changes.saved().get(0).getPassengerName());
+        assertEquals(List.of(removed), changes.deleted());
+        assertEquals(since + 3, changes.version());
+        assertFalse(changes.saved().stream().anyMatch(pass -> pass.getId() == kept));
+
+        PassRepository.Changes none = await(repository.findChanges(changes.version()));
+        assertTrue(none.isEmpty());
+        assertEquals(changes.version(), none.version());
+    }
+
+    @Test
+    void aPassDeletedAndNotRecreatedStaysDeleted() throws Exception {
+        int id = await(repository.insert(pass("Asha", "Andheri")));
+        assertTrue(await(repository.delete(id)));
+
+        PassRepository.Changes changes = await(repository.findChanges(0));
+        assertEquals(List.of(), changes.saved());
+        assertEquals(List.of(id), changes.deleted());
+    }
+
+    @Test
+    void updatesAndDeletesOfMissingPassesReportFalseAndChangeNothing() throws Exception {
+        await(repository.insert(pass("Asha", "Andheri")));
+        long version = await(repository.changeVersion());
+
+        assertFalse(await(repository.update(999, pass("Nobody", "Andheri"))));
+        assertFalse(await(repository.delete(999)));
+
+        assertTrue(await(repository.findChanges(version)).isEmpty());
+        assertEquals(1, await(repository.loadDirectory()).passes().size());
+    }
+
+    @Test
+    void aVersionBelowTheRequestedOneSignalsARestoredDatabase() throws Exception {
+        await(repository.insert(pass("Asha", "Andheri")));
+
+        PassRepository.Changes changes = await(repository.findChanges(50));
+        assertTrue(changes.version() < 50);
+        assertTrue(changes.reloadRequired());
+    }
+
+    @Test
+    void prunedDeletionsAskForAFullReload() throws Exception {
+        int gone = await(repository.insert(pass("Asha", "Andheri")));
+        long beforeDelete = await(repository.changeVersion());
+        await(repository.delete(gone));
+        long afterDelete = await(repository.changeVersion());
+        assertEquals(List.of(gone), await(repository.findChanges(beforeDelete)).deleted());
+
+        try (Connection conn = db.pool.getConnection()) {
+            assertEquals(1, PassChangeLog.pruneTombstones(conn, new Timestamp(System.currentTimeMillis() + 60_000)));
+        }
+        assertTrue(await(repository.findChanges(beforeDelete)).reloadRequired());
+        assertFalse(await(repository.findChanges(afterDelete)).reloadRequired());
+        await(repository.insert(pass("Ravi", "Dadar")));
+        PassRepository.Changes later = await(repository.findChanges(afterDelete));
+        assertFalse(later.reloadRequired());
+        assertEquals(1, later.saved().size());
+    }
+
+    private static Pass pass(String name, String source) {
+        return PassRules.newPass(name, "Bus", "Monthly", source, "Churchgate", ISSUED);
+    }
+}
@@ -0,0 +1,155 @@
+package com.transportpass;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PassSearchIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2030, 3, 10);
+
+    private final ObservableList<Pass> passes = FXCollections.observableArrayList();
+    private PassSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Days.setClock(Clock.fixed(TODAY.atTime(12, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        index = new PassSearchIndex(passes);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Days.setClock(null);
+    }
+
+    @Test
+    void matchesSubstringsOfNameTypeAndRoute() {
+        Pass asha = pass("Asha Rao", "Bus Monthly", "Andheri", "Churchgate", 30);
+        Pass ravi = pass("Ravi Kumar", "Metro Weekly", "Thane", "Kurla", 30);
+        passes.addAll(asha, ravi);
+
+        assertEquals(List.of(asha), matching("ASHA"));
+        assertEquals(List.of(ravi), matching("metro"));
+        assertEquals(List.of(asha), matching("churchg"));
+        assertEquals(List.of(ravi), matching("ku"));
+        assertEquals(List.of(), matching("zebra"));
+        assertNull(index.search("  ", PassQuery.Status.ALL));
+    }
+
+    @Test
+    void aQueryDoesNotSpanTwoFields() {
+        passes.add(pass("Asha", "Bus", "Andheri", "Dadar", 30));
+
+        assertEquals(List.of(), matching("habus"));
+    }
+
+    @Test
+    void matchesStatusWordsButNotDayCounts() {
+        Pass expired = pass("A", "Bus", null, null, -2);
+        Pass today = pass("B", "Bus", null, null, 0);
+        Pass expiring = pass("C", "Bus", null, null, 3);
+        Pass active = pass("D", "Bus", null, null, 30);
+        passes.addAll(expired, today, expiring, active);
+
+        assertEquals(List.of(expired), matching("expired"));
+        assertEquals(List.of(today), matching("expires today"));
+        assertEquals(List.of(expiring), matching("expiring"));
+        assertEquals(List.of(active), matching("active"));
+        assertEquals(List.of(expired, today, expiring), matching("expir"));
+        assertEquals(List.of(), matching("30 days"));
+    }
+
+    @Test
+    void filtersByStatus() {
+        Pass expired = pass("A", "Bus", null, null, -1);
+        Pass today = pass("B", "Bus", null, null, 0);
+        Pass active = pass("C", "Bus", null, null, 9);
+        passes.addAll(expired, today, active);
+
+        assertEquals(List.of(today, active), matching("", PassQuery.Status.ACTIVE));
+        assertEquals(List.of(expired), matching("", PassQuery.Status.EXPIRED));
+        assertEquals(List.of(active), matching("c", PassQuery.Status.ACTIVE));
+    }
+
+    @Test
+    void followsRowEdits() {
+        Pass pass = pass("Asha", "Bus", "Andheri", "Dadar", 30);
+        pass.setObserver(index);
+        passes.add(pass);
+
+        pass.setPassengerName("Meera");
+        assertEquals(List.of(), matching("asha"));
+        assertEquals(List.of(pass), matching("meera"));
+
+        pass.setValidUntilDate(TODAY.minusDays(1));
+        assertEquals(List.of(pass), matching("", PassQuery.Status.EXPIRED));
+    }
+
+    @Test
+    void aPassInAReusedSlotDoesNotMatchAnOlderResult() {
+        Pass asha = pass("Asha", "Bus", "Andheri", "Dadar", 30);
+        passes.add(asha);
+        PassSearchIndex.Matches older = index.search("asha", PassQuery.Status.ALL);
+
+        passes.remove(asha);
+        Pass ravi = pass("Ravi", "Bus", "Thane", "Kurla", 30);
+        passes.add(ravi);
+
+        assertFalse(index.matches(older, ravi));
+        assertTrue(index.matches(index.search("ravi", PassQuery.Status.ALL), ravi));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void staysCorrectAcrossManyRemovals() {
+        for (int i = 0; i < 3_000; i++) {
+            passes.add(pass("Passenger " + i, "Bus", "Stop " + (i % 7), "Depot", 30));
+        }
+        passes.removeIf(pass -> pass.getPassengerName().hashCode() % 3 != 0);
+
+        for (String query : List.of("12", "nger 12", "stop 3")) {
+            List<Pass> expected = passes.stream()
+                    .filter(pass -> (pass.getPassengerName() + " " + pass.getSource()).toLowerCase().contains(query))
+                    .collect(Collectors.toList());
+            assertEquals(expected, matching(query), query);
+        }
+        assertEquals(passes.size(), index.size());
+    }
+
+    @Test
+    void statusBucketsFollowTheDate() {
+        Pass pass = pass("Asha", "Bus", null, null, 0);
+        passes.add(pass);
+        assertEquals(List.of(pass), matching("", PassQuery.Status.ACTIVE));
+
+        Days.setClock(Clock.fixed(TODAY.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        assertEquals(List.of(), matching("", PassQuery.Status.ACTIVE));
+        assertEquals(List.of(pass), matching("expired"));
+    }
+
+    private List<Pass> matching(String query) {
+        return matching(query, PassQuery.Status.ALL);
+    }
+
+    private List<Pass> matching(String query, PassQuery.Status status) {
+        PassSearchIndex.Matches result = index.search(query, status);
+        return passes.stream().filter(pass -> index.matches(result, pass)).collect(Collectors.toList());
+    }
+
+    private static Pass pass(String name, String type, String source, String destination, int daysLeft) {
+        return new Pass(0, name, type, "Monthly", 30, source, destination, TODAY.plusDays(daysLeft));
+    }
+}
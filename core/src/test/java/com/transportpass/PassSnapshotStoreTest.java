@@ -0,0 +1,109 @@
+package com.transportpass;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static com.transportpass.TestDatabase.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PassSnapshotStoreTest {
+
+    private static final String SOURCE = "EMBEDDED jdbc:h2:mem:test sa";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsEveryValueAndTheVersion() throws Exception {
+        List<Pass> passes = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            passes.add(new Pass(i, "Passenger " + i + " é", i % 2 == 0 ? "Bus Monthly" : "Metro Weekly",
+                    i % 2 == 0 ? "Monthly" : "Weekly", i % 2 == 0 ? 30 : 7, "Andheri", "Dadar", LocalDate.of(2030, 1, 1).plusDays(i)));
+        }
+        passes.add(new Pass(501, "No Route", "Train Daily", "Daily", 1, null, null, LocalDate.of(1999, 12, 31)));
+        Path file = dir.resolve("snapshot.bin");
+
+        try (PassSnapshotStore store = new PassSnapshotStore(file, SOURCE)) {
+            await(store.save(passes, 42));
+            PassSnapshotStore.Snapshot snapshot = await(store.load()).orElseThrow();
+
+            assertEquals(42, snapshot.version());
+            assertTrue(snapshot.savedAtMillis() > 0);
+            assertEquals(passes.size(), snapshot.passes().size());
+            for (int i = 0; i < passes.size(); i++) {
+                Pass expected = passes.get(i);
+                Pass actual = snapshot.passes().get(i);
+                assertEquals(expected.getId(), actual.getId());
+                assertTrue(expected.hasSameValues(actual), "row " + i);
+            }
+            assertNull(snapshot.passes().get(500).getSource());
+        }
+    }
+
+    @Test
+    void replacingASnapshotKeepsOnlyTheNewOne() throws Exception {
+        Path file = dir.resolve("snapshot.bin");
+        try (PassSnapshotStore store = new PassSnapshotStore(file, SOURCE)) {
+            store.save(List.of(pass(1), pass(2)), 1);
+            await(store.save(List.of(pass(3)), 2));
+            PassSnapshotStore.Snapshot snapshot = await(store.load()).orElseThrow();
+            assertEquals(2, snapshot.version());
+            assertEquals(List.of(3), snapshot.passes().stream().map(Pass::getId).toList());
+        }
+    }
+
+    @Test
+    void ignoresAMissingFile() throws Exception {
+        try (PassSnapshotStore store = new PassSnapshotStore(dir.resolve("absent.bin"), SOURCE)) {
+            assertEquals(Optional.empty(), await(store.load()));
+        }
+    }
+
+    @Test
+    void ignoresASnapshotOfAnotherDatabase() throws Exception {
+        Path file = dir.resolve("snapshot.bin");
+        try (PassSnapshotStore store = new PassSnapshotStore(file, SOURCE)) {
+            await(store.save(List.of(pass(1)), 1));
+        }
+        try (PassSnapshotStore other = new PassSnapshotStore(file, "MYSQL jdbc:mysql://elsewhere/transport_db clerk")) {
+            assertEquals(Optional.empty(), await(other.load()));
+        }
+    }
+
+    @Test
+    void ignoresADamagedOrTruncatedFile() throws Exception {
+        Path file = dir.resolve("snapshot.bin");
+        try (PassSnapshotStore store = new PassSnapshotStore(file, SOURCE)) {
+            await(store.save(List.of(pass(1), pass(2)), 1));
+            byte[] bytes = Files.readAllBytes(file);
+
+            byte[] flipped = bytes.clone();
+            flipped[flipped.length - 3] ^= 0x5A;
+            Files.write(file, flipped);
+            assertEquals(Optional.empty(), await(store.load()));
+
+            Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+            assertEquals(Optional.empty(), await(store.load()));
+
+            Files.write(file, Arrays.copyOf(bytes, 10));
+            assertEquals(Optional.empty(), await(store.load()));
+
+            Files.write(file, bytes);
+            assertEquals(2, await(store.load()).orElseThrow().passes().size());
+        }
+    }
+
+    private static Pass pass(int id) {
+        return new Pass(id, "Passenger " + id, "Bus Monthly", "Monthly", 30, "Andheri", "Dadar", LocalDate.of(2030, 1, id));
+    }
+}
@@ -0,0 +1,126 @@
+package com.transportpass;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static com.transportpass.TestDatabase.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PassValidationIndexTest {
+
+    private TestDatabase db;
+    private PassRepository repository;
+    private PassValidationIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = TestDatabase.migrated("pool.maxSize=1", "validation.unknownPassMillis=60000");
+        repository = new PassRepository(db.pool, db.executor);
+        index = new PassValidationIndex(repository, db.pool, db.executor, db.config);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        db.close();
+    }
+
+    @Test
+    void warmsFromTheDatabaseAndJudgesRoutesAndExpiry() throws Exception {
+        LocalDate today = Days.todayDate();
+        int valid = await(repository.insert(pass("Andheri", "Dadar", today.plusDays(3))));
+        int expired = await(repository.insert(pass("Andheri", "Dadar", today.minusDays(1))));
+        int anyRoute = await(repository.insert(pass(null, null, today)));
+
+        assertEquals(3, await(index.warm()));
+
+        assertEquals(PassValidationIndex.Verdict.VALID, index.lookup(valid, "Andheri", "Dadar"));
+        assertEquals(PassValidationIndex.Verdict.WRONG_ROUTE, index.lookup(valid, "Dadar", "Andheri"));
+        assertEquals(PassValidationIndex.Verdict.WRONG_ROUTE, index.lookup(valid, "Andheri", "Nowhere"));
+        assertEquals(PassValidationIndex.Verdict.EXPIRED, index.lookup(expired, "Andheri", "Dadar"));
+        assertEquals(PassValidationIndex.Verdict.VALID, index.lookup(anyRoute, "Thane", "Kurla"));
+        assertEquals("Bus Monthly", index.passType(valid));
+        assertNull(index.lookup(9999, "Andheri", "Dadar"));
+        assertEquals(PassValidationIndex.Verdict.UNKNOWN_PASS, await(index.validate(9999, "Andheri", "Dadar")));
+    }
+
+    @Test
+    void followsWritesMadeThroughTheRepository() throws Exception {
+        await(index.warm());
+        int id = await(repository.insert(pass("Andheri", "Dadar", Days.todayDate().plusDays(10))));
+        assertEquals(PassValidationIndex.Verdict.VALID, index.lookup(id, "Andheri", "Dadar"));
+
+        await(repository.update(id, pass("Thane", "Kurla", Days.todayDate().plusDays(10))));
+        assertEquals(PassValidationIndex.Verdict.WRONG_ROUTE, index.lookup(id, "Andheri", "Dadar"));
+
+        await(repository.delete(id));
+        assertNull(index.lookup(id, "Thane", "Kurla"));
+        assertEquals(PassValidationIndex.Verdict.UNKNOWN_PASS, await(index.validate(id, "Thane", "Kurla")));
+    }
+
+    @Test
+    void aLoadDoesNotBringBackAPassDeletedWhileItRan() throws Exception {
+        int id = await(repository.insert(pass("Andheri", "Dadar", Days.todayDate().plusDays(10))));
+        index.deleted(id);
+
+        Connection held = db.pool.getConnection();
+        // the lookup waits for the only connection, so the delete below lands while it runs
+        CompletableFuture<PassValidationIndex.Verdict> verdict = index.validate(id, "Andheri", "Dadar");
+        index.deleted(id);
+        held.close();
+        await(verdict);
+        assertNull(index.lookup(id, "Andheri", "Dadar"));
+    }
+
+    @Test
+    void remembersUnknownIdsUntilTheyAreSaved() throws Exception {
+        assertEquals(PassValidationIndex.Verdict.UNKNOWN_PASS, await(index.validate(42, "Andheri", "Dadar")));
+        db.execute("INSERT INTO transport_pass (id, passenger_name, pass_type, duration_type, duration_days, "
+                + "source, destination, valid_until) VALUES (42, 'Asha', 'Bus Monthly', 'Monthly', 30, "
+                + "'Andheri', 'Dadar', DATEADD('DAY', 5, CURRENT_DATE))");
+        assertEquals(PassValidationIndex.Verdict.UNKNOWN_PASS, await(index.validate(42, "Andheri", "Dadar")));
+
+        index.saved(42, pass("Andheri", "Dadar", Days.todayDate().plusDays(5)));
+        assertEquals(PassValidationIndex.Verdict.VALID, await(index.validate(42, "Andheri", "Dadar")));
+    }
+
+    @Test
+    void deletesKeepEveryOtherPassReachable() {
+        // enough ids to grow the table and build long probe runs; deletes shift the runs back
+        Random random = new Random(7);
+        Set<Integer> present = new HashSet<>();
+        Pass values = pass("Andheri", "Dadar", Days.todayDate().plusDays(30));
+        for (int round = 0; round < 20_000; round++) {
+            int id = 1 + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                index.deleted(id);
+                present.remove(id);
+            } else {
+                index.saved(id, values);
+                present.add(id);
+            }
+        }
+        assertEquals(present.size(), index.size());
+        for (int id = 1; id <= 5_000; id++) {
+            PassValidationIndex.Verdict verdict = index.lookup(id, "Andheri", "Dadar");
+            if (present.contains(id)) {
+                assertNotNull(verdict, "lost pass " + id);
+            } else {
+                assertNull(verdict, "deleted pass " + id + " still found");
+            }
+        }
+    }
+
+    private static Pass pass(String source, String destination, LocalDate validUntil) {
+        return new Pass(0, "Asha", "Bus Monthly", "Monthly", 30, source, destination, validUntil);
+    }
+}
@@ -0,0 +1,57 @@
+package com.transportpass;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+
+    private final PasswordHasher hasher = new PasswordHasher(1_000);
+
+    @Test
+    void verifiesWhatItHashed() {
+        String hash = hasher.hash("s3cret");
+
+        assertTrue(hasher.verify("s3cret", hash));
+        assertFalse(hasher.verify("S3cret", hash));
+        assertFalse(hasher.needsRehash(hash));
+    }
+
+    @Test
+    void saltsEveryHash() {
+        assertNotEquals(hasher.hash("s3cret"), hasher.hash("s3cret"));
+    }
+
+    @Test
+    void acceptsLegacyShaHashesButAsksForAnUpgrade() throws Exception {
+        String legacy = HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest("s3cret".getBytes(StandardCharsets.UTF_8)));
+
+        assertTrue(hasher.verify("s3cret", legacy));
+        assertFalse(hasher.verify("other", legacy));
+        assertTrue(hasher.needsRehash(legacy));
+    }
+
+    @Test
+    void asksForAnUpgradeWhenTheWorkFactorWentUp() {
+        String weaker = new PasswordHasher(500).hash("s3cret");
+
+        assertTrue(hasher.verify("s3cret", weaker));
+        assertTrue(hasher.needsRehash(weaker));
+    }
+
+    @Test
+    void rejectsMalformedAndUnusableHashes() {
+        assertFalse(hasher.verify("s3cret", null));
+        assertFalse(hasher.verify("s3cret", "not hex"));
+        assertFalse(hasher.verify("s3cret", "pbkdf2$1000$broken"));
+        assertFalse(hasher.verify("", hasher.unusableHash()));
+        assertFalse(hasher.needsRehash(hasher.unusableHash()));
+    }
+}
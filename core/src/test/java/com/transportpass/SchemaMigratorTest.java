@@ -0,0 +1,90 @@
+package com.transportpass;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaMigratorTest {
+
+    @Test
+    void appliesEveryMigrationOnceOnAnEmptyDatabase() throws Exception {
+        try (TestDatabase db = TestDatabase.create()) {
+            SchemaMigrator migrator = new SchemaMigrator(db.pool);
+            assertEquals(versions(SchemaMigrator.MIGRATIONS), migrator.migrate());
+            assertEquals(List.of(), migrator.migrate());
+            assertEquals(0, changeVersion(db));
+        }
+    }
+
+    @Test
+    void reappliesOverAnExistingSchemaWithoutFailingOrDuplicating() throws Exception {
+        try (TestDatabase db = TestDatabase.migrated()) {
+            // a database whose tables and indexes exist but whose history was lost, like one made before versioning
+            db.execute("DROP TABLE schema_version");
+            assertEquals(versions(SchemaMigrator.MIGRATIONS), new SchemaMigrator(db.pool).migrate());
+            assertEquals(1, count(db, "SELECT COUNT(*) FROM pass_change_sequence"));
+            assertEquals(0, changeVersion(db));
+        }
+    }
+
+    @Test
+    void addsColumnsMissingFromOlderTables() throws Exception {
+        try (TestDatabase db = TestDatabase.create()) {
+            db.execute("CREATE TABLE transport_pass (id INT AUTO_INCREMENT PRIMARY KEY, pass_type VARCHAR(100) NOT NULL,"
+                    + " duration_days INT NOT NULL, valid_until DATE NOT NULL)");
+            new SchemaMigrator(db.pool).migrate();
+            db.execute("INSERT INTO transport_pass (passenger_name, pass_type, duration_type, duration_days, source, destination, valid_until)"
+                    + " VALUES ('Asha', 'Bus Daily', 'Daily', 1, 'Andheri', 'Dadar', DATE '2030-01-01')");
+            assertEquals(1, count(db, "SELECT COUNT(*) FROM transport_pass WHERE row_version = 0"));
+        }
+    }
+
+    @Test
+    void refusesAMigrationChangedAfterItWasApplied() throws Exception {
+        try (TestDatabase db = TestDatabase.create()) {
+            new SchemaMigrator(db.pool, List.of(new SchemaMigrator.Migration(1, "Notes", "CREATE TABLE note (id INT)"))).migrate();
+            SchemaMigrator edited = new SchemaMigrator(db.pool,
+                    List.of(new SchemaMigrator.Migration(1, "Notes", "CREATE TABLE note (id INT, text VARCHAR(10))")));
+            SQLException ex = assertThrows(SQLException.class, edited::migrate);
+            assertTrue(ex.getMessage().contains("V1"), ex.getMessage());
+        }
+    }
+
+    @Test
+    void runsOnlyMigrationsNewerThanTheLastApplied() throws Exception {
+        try (TestDatabase db = TestDatabase.create()) {
+            SchemaMigrator.Migration first = new SchemaMigrator.Migration(1, "Notes", "CREATE TABLE note (id INT)");
+            SchemaMigrator.Migration second = new SchemaMigrator.Migration(2, "Note text", "ALTER TABLE note ADD COLUMN text VARCHAR(10)");
+            new SchemaMigrator(db.pool, List.of(first)).migrate();
+            assertEquals(List.of(2), new SchemaMigrator(db.pool, List.of(second, first)).migrate());
+        }
+    }
+
+    private static List<Integer> versions(List<SchemaMigrator.Migration> migrations) {
+        List<Integer> versions = new ArrayList<>();
+        migrations.forEach(migration -> versions.add(migration.version()));
+        return versions;
+    }
+
+    private static long changeVersion(TestDatabase db) throws SQLException {
+        return count(db, "SELECT last_version FROM pass_change_sequence WHERE id = 1");
+    }
+
+    static long count(TestDatabase db, String sql) throws SQLException {
+        try (Connection conn = db.pool.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.transportpass;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionStoreTest {
+
+    @Test
+    void findsIssuedSessionsUntilRevoked() {
+        SessionStore store = new SessionStore(Duration.ofMinutes(5));
+        SessionStore.Session asha = store.issue("asha");
+        SessionStore.Session other = store.issue("asha");
+
+        assertNotEquals(asha.token(), other.token());
+        assertEquals("asha", store.touch(asha.token()).orElseThrow().username());
+
+        store.revoke(asha.token());
+        assertTrue(store.touch(asha.token()).isEmpty());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void revokesEverySessionOfAUser() {
+        SessionStore store = new SessionStore(Duration.ofMinutes(5));
+        store.issue("asha");
+        store.issue("asha");
+        SessionStore.Session ravi = store.issue("ravi");
+
+        store.revokeUser("asha");
+        assertEquals(1, store.size());
+        assertTrue(store.touch(ravi.token()).isPresent());
+    }
+
+    @Test
+    void forgetsExpiredAndUnknownTokens() throws Exception {
+        SessionStore store = new SessionStore(Duration.ofMillis(20));
+        SessionStore.Session session = store.issue("asha");
+        Thread.sleep(50);
+
+        assertTrue(store.touch(session.token()).isEmpty());
+        assertTrue(store.touch("made-up").isEmpty());
+        assertTrue(store.touch(null).isEmpty());
+    }
+
+    @Test
+    void useExtendsASession() {
+        SessionStore store = new SessionStore(Duration.ofMinutes(5));
+        SessionStore.Session issued = store.issue("asha");
+
+        long extended = store.touch(issued.token()).orElseThrow().expiresAtNanos();
+        assertTrue(extended - issued.expiresAtNanos() >= 0);
+    }
+}
@@ -0,0 +1,75 @@
+package com.transportpass;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/** A private in-memory H2 database (storage.backend=embedded) with a pool and executor, for one test. */
+final class TestDatabase implements AutoCloseable {
+
+    final AppConfig config;
+    final ConnectionPool pool;
+    final DbExecutor executor = new DbExecutor();
+
+    private TestDatabase(AppConfig config) {
+        this.config = config;
+        this.pool = new ConnectionPool(config, StorageBackend.EMBEDDED);
+    }
+
+    /** A fresh, empty database; {@code settings} are extra {@code key=value} lines. */
+    static TestDatabase create(String... settings) {
+        try {
+            Path file = Files.createTempFile("transport-pass-test", ".properties");
+            StringBuilder text = new StringBuilder("storage.backend=embedded\n")
+                    .append("storage.embedded.path=mem:test-").append(UUID.randomUUID()).append('\n');
+            for (String setting : settings) {
+                text.append(setting).append('\n');
+            }
+            Files.writeString(file, text);
+            AppConfig config = AppConfig.load(file);
+            Files.delete(file);
+            return new TestDatabase(config);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /** A database with every schema migration applied. */
+    static TestDatabase migrated(String... settings) throws SQLException {
+        TestDatabase db = create(settings);
+        new SchemaMigrator(db.pool).migrate();
+        return db;
+    }
+
+    void execute(String sql) throws SQLException {
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(sql);
+        }
+    }
+
+    static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof Exception cause ? cause : ex;
+        } catch (TimeoutException ex) {
+            throw new AssertionError("Timed out waiting for the database", ex);
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        execute("SHUTDOWN");
+        executor.close();
+        pool.close();
+    }
+}
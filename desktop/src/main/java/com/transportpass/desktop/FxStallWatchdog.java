@@ -0,0 +1,180 @@
+package com.transportpass.desktop;
+
+import com.transportpass.AppConfig;
+import com.transportpass.LatencyHistogram;
+import com.transportpass.Metrics;
+import javafx.animation.AnimationTimer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notices when the JavaFX Application Thread stops rendering. An {@link AnimationTimer} beats on
+ * every pulse; a background thread checks the beat, and once it is older than
+ * {@code diagnostics.stallThresholdMillis} it samples the FX thread's stack until the beat resumes.
+ * Each stall is appended to {@code diagnostics.stallLog} as it happens: the actions in progress
+ * (see {@link #action}) and each stack sample are written when taken, so a thread that never
+ * recovers is still reported, and a closing line with the stall's length follows if it does. The
+ * log rolls over at {@code diagnostics.maxBytes} keeping {@code diagnostics.maxFiles} older files.
+ * Stall lengths are also recorded in the {@code ui.stall} timer.
+ *
+ * <p>Must be created and started on the FX thread, which is the thread it watches.
+ */
+public final class FxStallWatchdog implements AutoCloseable {
+
+    private static final int MAX_SAMPLES = 5;
+    private static final int MAX_FRAMES = 40;
+
+    private final Thread fxThread = Thread.currentThread();
+    private final long thresholdNanos;
+    private final Path log;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final LatencyHistogram stalls;
+    private final Metrics metrics;
+    private final AnimationTimer heartbeat = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            lastBeatNanos = System.nanoTime();
+            // anything marked before this pulse has finished
+            action = null;
+        }
+    };
+    private ScheduledExecutorService monitor;
+    private volatile long lastBeatNanos = System.nanoTime();
+    private volatile String action;
+
+    // monitor thread only
+    private boolean stalled;
+    private long stalledBeat;
+    private String stalledAction;
+    private int samples;
+
+    public FxStallWatchdog(AppConfig config, Metrics metrics) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(50, config.getLong("diagnostics.stallThresholdMillis", 500)));
+        this.log = Path.of(config.get("diagnostics.stallLog", "data/fx-stalls.log"));
+        this.maxBytes = Math.max(16 * 1024, config.getLong("diagnostics.maxBytes", 1024 * 1024));
+        this.maxFiles = Math.max(1, config.getInt("diagnostics.maxFiles", 3));
+        this.metrics = metrics;
+        this.stalls = metrics.timer("ui.stall");
+    }
+
+    public void start() {
+        if (monitor != null) return;
+        lastBeatNanos = System.nanoTime();
+        heartbeat.start();
+        monitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fx-stall-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(20), thresholdNanos / 4);
+        monitor.scheduleWithFixedDelay(this::check, checkNanos, checkNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Names what the FX thread is doing, for the stall report, until the next pulse; nested
+     * actions within one pulse read as {@code outer > inner}. Call on the FX thread.
+     */
+    public void action(String name) {
+        String current = action;
+        action = current == null ? name : current + " > " + name;
+    }
+
+    @Override
+    public void close() {
+        heartbeat.stop();
+        if (monitor != null) {
+            monitor.shutdownNow();
+        }
+    }
+
+    private void check() {
+        long beat = lastBeatNanos;
+        long now = System.nanoTime();
+        if (stalled && beat != stalledBeat) {
+            finishStall(beat - stalledBeat);
+        }
+        if (now - beat < thresholdNanos) return;
+        if (!stalled) {
+            stalled = true;
+            stalledBeat = beat;
+            stalledAction = action;
+            samples = 0;
+        }
+        if (samples < MAX_SAMPLES) {
+            // written straight away: a thread that never recovers must still leave a report
+            samples++;
+            report(samples == 1 ? startLine(now - beat) : "", now - beat, fxThread.getStackTrace());
+        }
+    }
+
+    private void finishStall(long nanos) {
+        stalls.recordNanos(nanos);
+        metrics.counter("ui.stalls").increment();
+        report(String.format(Locale.ROOT, "%s FX thread recovered after a %.0f ms stall during %s%n  stalls so far: %s%n",
+                Instant.now(), nanos / 1e6, describe(stalledAction), stalls), 0, null);
+        stalled = false;
+        stalledAction = null;
+    }
+
+    private String startLine(long nanos) {
+        return String.format(Locale.ROOT, "%s FX thread stalled (%.0f ms so far) during %s%n",
+                Instant.now(), nanos / 1e6, describe(stalledAction));
+    }
+
+    /** Appends {@code text} and, when given, a stack sample taken {@code nanos} into the stall. */
+    private void report(String text, long nanos, StackTraceElement[] stack) {
+        StringBuilder out = new StringBuilder(text);
+        if (stack != null) {
+            out.append(String.format(Locale.ROOT, "  sample %d at %.0f ms:%n", samples, nanos / 1e6));
+            for (int f = 0; f < Math.min(stack.length, MAX_FRAMES); f++) {
+                out.append("    at ").append(stack[f]).append(System.lineSeparator());
+            }
+            if (stack.length > MAX_FRAMES) {
+                out.append("    ... ").append(stack.length - MAX_FRAMES).append(" more").append(System.lineSeparator());
+            }
+        }
+        try {
+            append(out.toString(), samples == 1 && stack != null);
+        } catch (IOException ignored) {
+            // diagnostics must never take the application down
+        }
+    }
+
+    private void append(String text, boolean newRecord) throws IOException {
+        Path parent = log.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        // roll only between records, so one stall stays in one file
+        if (newRecord && Files.exists(log) && Files.size(log) > maxBytes) roll();
+        try (BufferedWriter out = Files.newBufferedWriter(log, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            out.write(text);
+        }
+    }
+
+    private static String describe(String action) {
+        return action == null ? "(unmarked work)" : action;
+    }
+
+    /** Moves the log to log.1, shifting older files up; log.(maxFiles) is overwritten, so that many are kept. */
+    private void roll() throws IOException {
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path older = log.resolveSibling(log.getFileName() + "." + i);
+            if (Files.exists(older)) {
+                Files.move(older, log.resolveSibling(log.getFileName() + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(log, log.resolveSibling(log.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
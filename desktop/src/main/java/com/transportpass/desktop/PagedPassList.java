@@ -0,0 +1,158 @@
+package com.transportpass.desktop;
+
+import com.transportpass.AppConfig;
+import com.transportpass.DbExecutor;
+import com.transportpass.Pass;
+import com.transportpass.PassQuery;
+import com.transportpass.PassRepository;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+/**
+ * Lazy, database-backed list for the Pass Directory table.
+ * Only the pages the table actually asks for (plus a few neighbours) are fetched; rows that are
+ * still loading read as {@code null} and are announced as replaced once their page arrives.
+ * Filtering and sorting are pushed into SQL through {@link PassQuery}, and at most
+ * {@code maxCachedPages} pages stay in memory (least recently used pages are dropped).
+ * All methods must be called on the JavaFX Application Thread.
+ */
+public final class PagedPassList extends ObservableListBase<Pass> {
+
+    private final PassRepository repository;
+    private final int pageSize;
+    private final int prefetchPages;
+    private final int maxCachedPages;
+    private final Consumer<Exception> errorHandler;
+
+    private final Map<Integer, List<Pass>> pages;
+    private final Map<Integer, PassQuery.Anchor> pageStarts = new HashMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+    private PassQuery query = PassQuery.ALL;
+    private int size;
+    private int generation;
+
+    public PagedPassList(PassRepository repository, AppConfig config, Consumer<Exception> errorHandler) {
+        this.repository = repository;
+        this.pageSize = Math.max(10, config.getInt("directory.pageSize", 200));
+        this.prefetchPages = Math.max(0, config.getInt("directory.prefetchPages", 2));
+        this.maxCachedPages = Math.max(prefetchPages * 2 + 2, config.getInt("directory.maxCachedPages", 64));
+        this.errorHandler = errorHandler;
+        this.pages = new LinkedHashMap<>(maxCachedPages, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Pass>> eldest) {
+                return size() > maxCachedPages;
+            }
+        };
+    }
+
+    public PassQuery getQuery() {
+        return query;
+    }
+
+    /** Switches filter or sort order; the list empties and re-counts against the database. */
+    public void setQuery(PassQuery newQuery) {
+        query = newQuery;
+        refresh();
+    }
+
+    /** Drops every cached page and re-counts, e.g. after rows were inserted or deleted. */
+    public void refresh() {
+        int expected = ++generation;
+        pages.clear();
+        pageStarts.clear();
+        loading.clear();
+        repository.count(query).whenCompleteAsync((count, error) -> {
+            if (expected != generation) return;
+            if (error != null) {
+                Exception cause = asException(error);
+                if (!(cause instanceof CancellationException)) {
+                    errorHandler.accept(cause);
+                }
+                return;
+            }
+            resize(count);
+        }, Platform::runLater);
+    }
+
+    private void resize(int newSize) {
+        int oldSize = size;
+        size = newSize;
+        beginChange();
+        if (oldSize > 0) {
+            nextRemove(0, Collections.nCopies(oldSize, null));
+        }
+        if (newSize > 0) {
+            nextAdd(0, newSize);
+        }
+        endChange();
+    }
+
+    @Override
+    public Pass get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        int pageNo = index / pageSize;
+        List<Pass> page = pages.get(pageNo);
+        for (int ahead = 1; ahead <= prefetchPages; ahead++) {
+            requestPage(pageNo + ahead);
+        }
+        requestPage(pageNo - 1);
+        if (page == null) {
+            requestPage(pageNo);
+            return null;
+        }
+        int offset = index - pageNo * pageSize;
+        return offset < page.size() ? page.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void requestPage(int pageNo) {
+        if (pageNo < 0 || pageNo * pageSize >= size || pages.containsKey(pageNo) || !loading.add(pageNo)) {
+            return;
+        }
+        int expected = generation;
+        PassQuery.Anchor start = pageStarts.get(pageNo);
+        repository.findPage(query, start, pageNo * pageSize, pageSize).whenCompleteAsync((page, error) -> {
+            if (expected != generation) return;
+            loading.remove(pageNo);
+            if (error != null) {
+                Exception cause = asException(error);
+                if (!(cause instanceof CancellationException)) {
+                    errorHandler.accept(cause);
+                }
+                return;
+            }
+            pages.put(pageNo, page.rows());
+            if (page.last() != null) {
+                pageStarts.put(pageNo + 1, page.last());
+            }
+            int from = pageNo * pageSize;
+            int to = Math.min(size, from + pageSize);
+            if (from < to) {
+                beginChange();
+                nextReplace(from, to, Collections.nCopies(to - from, null));
+                endChange();
+            }
+        }, Platform::runLater);
+    }
+
+    private static Exception asException(Throwable error) {
+        Throwable cause = DbExecutor.unwrap(error);
+        return cause instanceof Exception ex ? ex : new RuntimeException(cause);
+    }
+}
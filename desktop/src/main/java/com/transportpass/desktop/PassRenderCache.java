@@ -0,0 +1,75 @@
+package com.transportpass.desktop;
+
+import com.transportpass.Days;
+import com.transportpass.Pass;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableRow;
+import javafx.scene.paint.Color;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * What the Valid Until and Status cells draw for a row: the expiry text, the status text and the
+ * colour. All of it follows from the row's expiry day and today's date, so it is worked out once per
+ * distinct expiry day and shared by every row and cell that shows that day; scrolling and re-sorting
+ * then only look entries up. A row whose expiry changes simply maps to another entry, and the whole
+ * cache is dropped when the date rolls over. Use on the JavaFX Application Thread only.
+ */
+final class PassRenderCache {
+
+    static final Color EXPIRED = Color.RED;
+    static final Color EXPIRING = Color.web("#d98300");
+    static final Color ACTIVE = Color.web("#1f7a1f");
+
+    /** The rendered form of one expiry day. */
+    record Render(String validUntil, String status, Color colour) {
+    }
+
+    private final Map<Long, Render> byExpiryDay = new HashMap<>();
+    private long today = Long.MIN_VALUE;
+
+    Render of(Pass pass) {
+        long now = Days.today();
+        if (now != today) {
+            byExpiryDay.clear();
+            today = now;
+        }
+        long expiryDay = pass.getValidUntilEpochDay();
+        Render render = byExpiryDay.get(expiryDay);
+        if (render == null) {
+            render = render(expiryDay, expiryDay - now);
+            byExpiryDay.put(expiryDay, render);
+        }
+        return render;
+    }
+
+    /**
+     * A cell for a column whose value is the row's {@link Pass#validUntilProperty}, so it redraws when
+     * the expiry changes, showing the coloured expiry date or, with {@code status}, the status text.
+     */
+    TableCell<Pass, String> cell(boolean status) {
+        return new TableCell<>() {
+            @Override
+            protected void updateItem(String value, boolean empty) {
+                super.updateItem(value, empty);
+                TableRow<Pass> row = getTableRow();
+                Pass pass = row == null ? null : row.getItem();
+                if (empty || value == null || pass == null) {
+                    setText(null);
+                    setTextFill(Color.BLACK);
+                } else {
+                    Render render = of(pass);
+                    setText(status ? render.status() : render.validUntil());
+                    setTextFill(status ? Color.BLACK : render.colour());
+                }
+            }
+        };
+    }
+
+    private static Render render(long expiryDay, long days) {
+        Color colour = days < 0 ? EXPIRED : days <= 5 ? EXPIRING : ACTIVE;
+        return new Render(LocalDate.ofEpochDay(expiryDay).toString(), Pass.describeStatus(days), colour);
+    }
+}
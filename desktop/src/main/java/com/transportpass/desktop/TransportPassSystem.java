@@ -0,0 +1,1542 @@
+package com.transportpass.desktop;
+
+import com.transportpass.AppConfig;
+import com.transportpass.AuthService;
+import com.transportpass.ConnectionPool;
+import com.transportpass.DashboardAggregates;
+import com.transportpass.DbExecutor;
+import com.transportpass.ExpiryEngine;
+import com.transportpass.FilterPipeline;
+import com.transportpass.Metrics;
+import com.transportpass.Pass;
+import com.transportpass.PassChangeFeed;
+import com.transportpass.PassCsvImporter;
+import com.transportpass.PassExporter;
+import com.transportpass.PassHttpServer;
+import com.transportpass.PassMetricsRepository;
+import com.transportpass.PassQuery;
+import com.transportpass.PassRepository;
+import com.transportpass.PassRules;
+import com.transportpass.PassSearchIndex;
+import com.transportpass.PassSnapshotStore;
+import com.transportpass.SchemaMigrator;
+import com.transportpass.StorageBackend;
+import com.transportpass.UserRepository;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.*;
+import javafx.collections.*;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
+import javafx.geometry.*;
+import javafx.scene.Scene;
+import javafx.scene.chart.PieChart;
+import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.*;
+import javafx.scene.paint.Color;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+import java.io.File;
+import java.nio.file.Path;
+import javafx.util.Duration;
+
+import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+public class TransportPassSystem extends Application {
+
+    private static final System.Logger LOG = System.getLogger(TransportPassSystem.class.getName());
+
+
+    // --- UI state ---
+    private final ObservableList<Pass> masterPasses = FXCollections.observableArrayList();
+    private final DashboardAggregates aggregates = new DashboardAggregates(masterPasses);
+    private final PassSearchIndex searchIndex = new PassSearchIndex(masterPasses);
+    private final ExpiryEngine expiryEngine = new ExpiryEngine(masterPasses);
+    private final Pass.Observer rowObserver = Pass.Observer.of(aggregates, searchIndex, expiryEngine);
+    private FilteredList<Pass> filteredPasses;
+    private SortedList<Pass> sortedPasses;
+    private PagedPassList pagedPasses;
+    private boolean pagedMode;
+    private int directoryRowCount;
+
+    private TableView<Pass> table;
+    private TextField passengerNameField;
+    private ComboBox<String> typeSuggestions;
+    private ComboBox<String> durationComboBox;
+    private ComboBox<String> sourceComboBox;
+    private ComboBox<String> destinationComboBox;
+    private Label validUntilLabel;
+
+    private TextField searchField;
+    private ToggleButton showAllToggle;
+    private ToggleButton activeToggle;
+    private ToggleButton expiredToggle;
+
+    private Label totalPassLabel;
+    private Label activePassLabel;
+    private Label expiringSoonLabel;
+    private PieChart passTypeChart;
+    private Label statusLabel;
+    private Label userBadge;
+    private Stage primaryStage;
+    private String currentUser;
+    private String sessionToken;
+
+    private boolean suppressStatusAnimation = false;
+    private final UiUpdateScheduler uiUpdates = new UiUpdateScheduler();
+    private final PassRenderCache renderCache = new PassRenderCache();
+    /** Returns the status text to its normal colour a while after the last message; one timer for all messages. */
+    private final PauseTransition statusFade = new PauseTransition(Duration.millis(3200));
+    private PauseTransition midnightRefresh;
+    private PauseTransition searchDebounce;
+    private FilterPipeline filterPipeline;
+
+    // --- data access ---
+    private AppConfig config;
+    private Metrics metrics;
+    private FxStallWatchdog watchdog;
+    private StorageBackend storageBackend;
+    private ConnectionPool connectionPool;
+    private DbExecutor dbExecutor;
+    private PassRepository passRepository;
+    private PassMetricsRepository metricsRepository;
+    private PassCsvImporter csvImporter;
+    private PassExporter exporter;
+    private UserRepository userRepository;
+    private AuthService authService;
+    private final IntegerProperty dbRequestsInFlight = new SimpleIntegerProperty();
+    private final AtomicBoolean inFlightUpdatePosted = new AtomicBoolean();
+    private CompletableFuture<Void> schemaReady = CompletableFuture.completedFuture(null);
+    private CompletableFuture<?> pendingLoad;
+    /**
+     * Change version the in-memory rows are current to, or -1 when they need a full load. Only a
+     * whole directory (a full load, or a snapshot of one) sets it, so rows synced from it stay whole.
+     */
+    private long syncVersion = -1;
+    private PassSnapshotStore snapshotStore;
+    private PassChangeFeed changeFeed;
+    private CompletableFuture<Optional<PassSnapshotStore.Snapshot>> snapshotLoad;
+    private boolean directoryLoaded;
+
+    {
+        masterPasses.addListener((ListChangeListener<Pass>) change -> {
+            while (change.next()) {
+                change.getRemoved().forEach(pass -> pass.setObserver(null));
+                change.getAddedSubList().forEach(pass -> pass.setObserver(rowObserver));
+            }
+            // the active filter is a bitmap of index slots, so rows that came or went need a fresh search
+            if (filteredPasses != null && !pagedMode && filterActive()) {
+                filterPipeline.invalidate();
+                applyFilters();
+            }
+        });
+    }
+
+    // --- entry point ---
+    public static void main(String[] args) throws Exception {
+        if (Arrays.asList(args).contains("--server")) {
+            // counters and gates share one headless service; the JavaFX toolkit is never started
+            PassHttpServer.main(args);
+            return;
+        }
+        launch(args);
+    }
+
+    @Override
+    public void start(Stage stage) {
+        primaryStage = stage;
+        config = AppConfig.load();
+        metrics = new Metrics(config);
+        watchdog = new FxStallWatchdog(config, metrics);
+        if (config.getBoolean("diagnostics.stallWatchdog", true)) {
+            watchdog.start();
+        }
+        storageBackend = StorageBackend.fromConfig(config);
+        ensureDriver();
+        try {
+            connectionPool = new ConnectionPool(config, storageBackend);
+        } catch (IllegalStateException ex) {
+            // e.g. db.user or db.password not set; nothing works without a database
+            showError("Database settings are incomplete.", ex);
+            Platform.exit();
+            return;
+        }
+        dbExecutor = new DbExecutor();
+        dbExecutor.setMetrics(metrics);
+        dbExecutor.setInFlightListener(count -> {
+            // called twice per request from database threads; one hop to the FX thread at a time, read on the pulse
+            if (inFlightUpdatePosted.compareAndSet(false, true)) {
+                Platform.runLater(() -> {
+                    inFlightUpdatePosted.set(false);
+                    uiUpdates.schedule(dbRequestsInFlight, () -> dbRequestsInFlight.set(dbExecutor.inFlight()));
+                });
+            }
+        });
+        passRepository = new PassRepository(connectionPool, dbExecutor);
+        metricsRepository = new PassMetricsRepository(connectionPool, dbExecutor, config);
+        passRepository.addWriteListener(PassRepository.WriteListener.onAnyWrite(metricsRepository::invalidate));
+        csvImporter = new PassCsvImporter(connectionPool, dbExecutor, config);
+        csvImporter.setWriteListener(metricsRepository::invalidate);
+        exporter = new PassExporter(connectionPool, dbExecutor, config);
+        userRepository = new UserRepository(connectionPool, dbExecutor);
+        authService = new AuthService(userRepository, config);
+        metrics.register("auth.login", authService.loginLatency());
+        filterPipeline = new FilterPipeline(searchIndex, Platform::runLater, this::showFilterResult);
+        expiryEngine.addListener(this::onExpiryTransitions);
+        searchDebounce = new PauseTransition(Duration.millis(config.getInt("search.debounceMillis", 150)));
+        searchDebounce.setOnFinished(e -> applyFilters());
+        statusFade.setOnFinished(e -> {
+            if (statusLabel != null) statusLabel.setStyle("-fx-text-fill: #263238;");
+        });
+        initDatabase();
+        if (config.getBoolean("snapshot.enabled", true)) {
+            snapshotStore = new PassSnapshotStore(Path.of(config.get("snapshot.path", "data/pass-snapshot.bin")),
+                    storageBackend.identity(config));
+            // read while the user signs in, so the directory can open with it
+            snapshotLoad = snapshotStore.load();
+        }
+        if (config.getBoolean("sync.enabled", true)) {
+            changeFeed = new PassChangeFeed(connectionPool, config);
+            schemaReady.thenRun(() -> changeFeed.start(-1, version -> Platform.runLater(this::onRemoteChange)));
+        }
+        showAuthScreen(stage);
+    }
+
+    @Override
+    public void stop() {
+        if (watchdog != null) {
+            watchdog.close();
+        }
+        if (filterPipeline != null) {
+            filterPipeline.close();
+        }
+        if (authService != null) {
+            authService.close();
+        }
+        if (snapshotStore != null) {
+            snapshotStore.close();
+        }
+        if (changeFeed != null) {
+            changeFeed.close();
+        }
+        if (dbExecutor != null) {
+            dbExecutor.close();
+        }
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
+        if (metrics != null) {
+            metrics.close();
+        }
+    }
+
+    // --- scene management ---
+
+    private void showAuthScreen(Stage stage) {
+        Scene authScene = buildAuthScene(stage);
+        stage.setTitle("Transport Pass System – Sign In");
+        stage.setScene(authScene);
+        stage.centerOnScreen();
+        stage.show();
+    }
+
+    private Scene buildAuthScene(Stage stage) {
+        Label title = new Label("Sustainable Transit Access");
+        title.setStyle("-fx-font-size: 24px; -fx-font-weight: bold;");
+
+        Label subtitle = new Label("Log in or create an account to manage smart passes.");
+        subtitle.setStyle("-fx-text-fill: #546e7a;");
+
+        TextField loginUser = new TextField();
+        loginUser.setPromptText("Username");
+        PasswordField loginPassword = new PasswordField();
+        loginPassword.setPromptText("Password");
+        Label loginStatus = new Label();
+        loginStatus.setWrapText(true);
+
+        Button loginButton = new Button("Sign In");
+        loginButton.setDefaultButton(true);
+        loginButton.setMaxWidth(Double.MAX_VALUE);
+        loginButton.setStyle("-fx-background-color: #2e7d32; -fx-text-fill: white; -fx-font-weight: bold;");
+        loginButton.setOnAction(e -> handleLogin(loginUser.getText(), loginPassword.getText(), loginStatus, loginButton, stage));
+
+        VBox loginCard = new VBox(10,
+                new Label("Login"),
+                loginUser,
+                loginPassword,
+                loginButton,
+                loginStatus);
+        loginCard.setPadding(new Insets(18));
+        loginCard.setStyle("-fx-background-color: white; -fx-border-color: #dcdfe4; -fx-border-radius: 8; -fx-background-radius: 8;");
+        loginCard.setPrefWidth(280);
+
+        TextField registerUser = new TextField();
+        registerUser.setPromptText("Choose a username");
+        PasswordField registerPassword = new PasswordField();
+        registerPassword.setPromptText("Choose a password");
+        PasswordField confirmPassword = new PasswordField();
+        confirmPassword.setPromptText("Confirm password");
+        Label registerStatus = new Label();
+        registerStatus.setWrapText(true);
+
+        Button registerButton = new Button("Create Account");
+        registerButton.setMaxWidth(Double.MAX_VALUE);
+        registerButton.setStyle("-fx-background-color: #1565c0; -fx-text-fill: white; -fx-font-weight: bold;");
+        registerButton.setOnAction(e -> handleRegistration(registerUser.getText(), registerPassword.getText(), confirmPassword.getText(), registerStatus, registerButton));
+
+        VBox registerCard = new VBox(10,
+                new Label("Register"),
+                registerUser,
+                registerPassword,
+                confirmPassword,
+                registerButton,
+                registerStatus);
+        registerCard.setPadding(new Insets(18));
+        registerCard.setStyle("-fx-background-color: white; -fx-border-color: #dcdfe4; -fx-border-radius: 8; -fx-background-radius: 8;");
+        registerCard.setPrefWidth(280);
+
+        HBox cards = new HBox(20, loginCard, registerCard);
+        cards.setAlignment(Pos.CENTER);
+
+        BorderPane root = new BorderPane();
+        VBox header = new VBox(8, title, subtitle);
+        header.setAlignment(Pos.CENTER);
+        header.setPadding(new Insets(20, 0, 10, 0));
+        root.setTop(header);
+        root.setCenter(cards);
+        root.setPadding(new Insets(20));
+        root.setStyle("-fx-background-color: linear-gradient(#f5f7fa, #e6ecf5);");
+
+        return new Scene(root, 700, 420);
+    }
+
+    private void showMainScene(Stage stage) {
+        watchdog.action("showMainScene");
+        BorderPane root = new BorderPane();
+        root.setTop(buildTopBar(stage));
+        root.setCenter(buildMainLayout());
+        root.setBottom(buildStatusBar());
+
+        Scene mainScene = new Scene(root, 1200, 700);
+        stage.setTitle("Transport Pass System – Sustainable Transit (SDG 11)");
+        stage.setScene(mainScene);
+        stage.centerOnScreen();
+        stage.show();
+
+        loadPasses();
+        if (table != null) {
+            table.requestFocus();
+        }
+        updateSummary();
+        scheduleMidnightRefresh();
+        showStatus("Welcome, " + (currentUser != null ? currentUser : "Guest") + "!");
+    }
+
+    private void handleLogin(String username, String password, Label feedback, Button trigger, Stage stage) {
+        watchdog.action("handleLogin");
+        String normalizedUser = normalizeUsername(username);
+        if (normalizedUser.isEmpty() || password == null || password.isBlank()) {
+            feedback.setTextFill(Color.web("#c62828"));
+            feedback.setText("Enter both username and password.");
+            return;
+        }
+        trigger.setDisable(true);
+        feedback.setTextFill(Color.web("#546e7a"));
+        feedback.setText("Signing in...");
+        onFx(schemaReady.thenCompose(ready -> authService.login(normalizedUser, password)), result -> {
+            trigger.setDisable(false);
+            if (result.outcome() == AuthService.Outcome.UNKNOWN_USER) {
+                feedback.setTextFill(Color.web("#c62828"));
+                feedback.setText("No account found for that username.");
+            } else if (result.succeeded()) {
+                currentUser = normalizedUser;
+                sessionToken = result.session().token();
+                feedback.setTextFill(Color.web("#2e7d32"));
+                feedback.setText("Login successful. Loading workspace...");
+                Platform.runLater(() -> showMainScene(stage));
+            } else {
+                feedback.setTextFill(Color.web("#c62828"));
+                feedback.setText("Incorrect password. Try again.");
+            }
+        }, ex -> {
+            trigger.setDisable(false);
+            feedback.setTextFill(Color.web("#c62828"));
+            if (ex instanceof AuthService.BusyException) {
+                feedback.setText("Too many sign-ins in progress. Try again in a moment.");
+            } else {
+                feedback.setText("Could not sign in. Please check database connection.");
+            }
+        });
+    }
+
+    private void handleRegistration(String username, String password, String confirmPassword, Label feedback, Button trigger) {
+        watchdog.action("handleRegistration");
+        String normalizedUser = normalizeUsername(username);
+        if (normalizedUser.length() < 3) {
+            feedback.setTextFill(Color.web("#c62828"));
+            feedback.setText("Username must be at least 3 characters.");
+            return;
+        }
+        if (password == null || password.length() < 6) {
+            feedback.setTextFill(Color.web("#c62828"));
+            feedback.setText("Password must be at least 6 characters.");
+            return;
+        }
+        if (!password.equals(confirmPassword)) {
+            feedback.setTextFill(Color.web("#c62828"));
+            feedback.setText("Passwords do not match.");
+            return;
+        }
+
+        trigger.setDisable(true);
+        onFx(schemaReady.thenCompose(ready -> authService.register(normalizedUser, password)), done -> {
+            trigger.setDisable(false);
+            feedback.setTextFill(Color.web("#2e7d32"));
+            feedback.setText("Account created. You can now log in.");
+        }, ex -> {
+            trigger.setDisable(false);
+            feedback.setTextFill(Color.web("#c62828"));
+            if (ex instanceof SQLIntegrityConstraintViolationException) {
+                feedback.setText("That username is already taken.");
+            } else {
+                feedback.setText("Registration failed. Please try again later.");
+            }
+        });
+    }
+
+    private void logout(Stage stage) {
+        watchdog.action("logout");
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION, "Log out from the Transport Pass System?", ButtonType.YES, ButtonType.NO);
+        confirm.setTitle("Confirm Logout");
+        confirm.setHeaderText(null);
+        confirm.initOwner(stage);
+        confirm.showAndWait()
+                .filter(btn -> btn == ButtonType.YES)
+                .ifPresent(btn -> {
+                    authService.logout(sessionToken);
+                    sessionToken = null;
+                    currentUser = null;
+                    cancelPendingLoad();
+                    masterPasses.clear();
+                    // the next sign-in starts from a full load; the change feed is ignored until then
+                    syncVersion = -1;
+                    directoryLoaded = false;
+                    usePagedDirectory(false);
+                    if (table != null) {
+                        table.getItems().clear();
+                    }
+                    showAuthScreen(stage);
+                });
+    }
+
+    private String normalizeUsername(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ENGLISH);
+    }
+
+    private void updateUserBadge() {
+        if (userBadge != null) {
+            String user = currentUser == null ? "Guest" : currentUser;
+            userBadge.setText("Signed in as " + user);
+        }
+    }
+
+    // --- UI construction helpers ---
+
+    private VBox buildMainLayout() {
+        table = buildTable();
+        filteredPasses = new FilteredList<>(masterPasses, pass -> true);
+        sortedPasses = new SortedList<>(filteredPasses);
+        sortedPasses.comparatorProperty().bind(table.comparatorProperty());
+        table.setItems(sortedPasses);
+        pagedPasses = new PagedPassList(passRepository, config, ex -> showError("Could not load passes.", ex));
+        pagedMode = false;
+
+        VBox left = new VBox(12, buildSearchPanel(), table);
+        VBox.setVgrow(table, Priority.ALWAYS);
+        left.setPadding(new Insets(12, 0, 12, 12));
+
+        VBox passForm = buildPassForm();
+        VBox dashboardPanel = buildDashboardPanel();
+        VBox right = new VBox(18, passForm, dashboardPanel);
+        right.setPadding(new Insets(12, 12, 12, 12));
+        right.setPrefWidth(380);
+        right.setMinWidth(380);
+        VBox.setVgrow(dashboardPanel, Priority.ALWAYS);
+
+        ScrollPane rightScroller = new ScrollPane(right);
+        rightScroller.setFitToWidth(true);
+        rightScroller.setHbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
+        rightScroller.setVbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
+        rightScroller.setPrefViewportWidth(400);
+        rightScroller.setStyle("-fx-background-color: transparent;");
+
+        HBox main = new HBox(18, left, new Separator(Orientation.VERTICAL), rightScroller);
+        HBox.setHgrow(left, Priority.ALWAYS);
+        return new VBox(main);
+    }
+
+    private TableView<Pass> buildTable() {
+        TableView<Pass> tv = new TableView<>();
+        tv.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_ALL_COLUMNS);
+        tv.setPlaceholder(new Label("No passes yet. Use the form to create one."));
+
+        TableColumn<Pass, Number> idCol = new TableColumn<>("ID");
+        // shown as the row number by the cell factory; a plain wrapper keeps the row's lazy id property uncreated
+        idCol.setCellValueFactory(cell -> cell.getValue() == null ? null : new ReadOnlyObjectWrapper<>(cell.getValue().getId()));
+        idCol.setCellFactory(col -> new TableCell<Pass, Number>() {
+            @Override
+            protected void updateItem(Number item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || getTableRow() == null) {
+                    setText(null);
+                } else {
+                    int rowIndex = getTableRow().getIndex();
+                    setText(String.valueOf(rowIndex + 1));
+                }
+            }
+        });
+        idCol.setPrefWidth(60);
+        idCol.setUserData(PassQuery.SortColumn.ID);
+
+        TableColumn<Pass, String> nameCol = new TableColumn<>("Passenger Name");
+        nameCol.setCellValueFactory(cell -> cell.getValue() == null ? null : cell.getValue().passengerNameProperty());
+        nameCol.setUserData(PassQuery.SortColumn.PASSENGER_NAME);
+
+        TableColumn<Pass, String> typeCol = new TableColumn<>("Pass Type");
+        typeCol.setCellValueFactory(cell -> cell.getValue() == null ? null : cell.getValue().passTypeProperty());
+        typeCol.setUserData(PassQuery.SortColumn.PASS_TYPE);
+
+        TableColumn<Pass, String> durCol = new TableColumn<>("Duration");
+        durCol.setCellValueFactory(cell -> cell.getValue() == null ? null : cell.getValue().durationTypeProperty());
+        durCol.setUserData(PassQuery.SortColumn.DURATION_TYPE);
+
+        TableColumn<Pass, String> sourceCol = new TableColumn<>("Source");
+        sourceCol.setCellValueFactory(cell -> cell.getValue() == null ? null : cell.getValue().sourceProperty());
+        sourceCol.setUserData(PassQuery.SortColumn.SOURCE);
+
+        TableColumn<Pass, String> destCol = new TableColumn<>("Destination");
+        destCol.setCellValueFactory(cell -> cell.getValue() == null ? null : cell.getValue().destinationProperty());
+        destCol.setUserData(PassQuery.SortColumn.DESTINATION);
+
+        // both read the row's expiry (so they redraw when it changes) and draw it from the render cache
+        TableColumn<Pass, String> validCol = new TableColumn<>("Valid Until");
+        validCol.setCellValueFactory(cell -> cell.getValue() == null ? null : cell.getValue().validUntilProperty());
+        validCol.setUserData(PassQuery.SortColumn.VALID_UNTIL);
+        validCol.setCellFactory(col -> renderCache.cell(false));
+
+        TableColumn<Pass, String> statusCol = new TableColumn<>("Status");
+        statusCol.setCellValueFactory(cell -> cell.getValue() == null ? null : cell.getValue().validUntilProperty());
+        statusCol.setCellFactory(col -> renderCache.cell(true));
+        statusCol.setPrefWidth(120);
+        statusCol.setUserData(PassQuery.SortColumn.VALID_UNTIL);
+
+        tv.getColumns().setAll(List.of(idCol, nameCol, typeCol, durCol, sourceCol, destCol, validCol, statusCol));
+        tv.setSortPolicy(view -> {
+            if (!pagedMode) {
+                return TableView.DEFAULT_SORT_POLICY.call(view);
+            }
+            pagedPasses.setQuery(currentQuery());
+            return true;
+        });
+        tv.getSelectionModel().selectedItemProperty()
+                .addListener((obs, old, sel) -> populateForm(sel));
+        tv.setRowFactory(tableView -> {
+            TableRow<Pass> row = new TableRow<>();
+            row.setOnMouseClicked(event -> {
+                if (event.getClickCount() == 2 && !row.isEmpty()) {
+                    populateForm(row.getItem());
+                }
+            });
+            return row;
+        });
+        return tv;
+    }
+
+    private VBox buildPassForm() {
+        Label header = new Label("Pass Management");
+        header.setStyle("-fx-font-size: 18px; -fx-font-weight: bold;");
+
+        passengerNameField = new TextField();
+        passengerNameField.setPromptText("e.g. John Doe");
+
+        typeSuggestions = new ComboBox<>();
+        typeSuggestions.getItems().addAll(PassRules.PASS_TYPES);
+        typeSuggestions.setEditable(false);
+        typeSuggestions.setPromptText("Select pass type");
+
+        durationComboBox = new ComboBox<>();
+        durationComboBox.getItems().addAll(PassRules.DURATION_TYPES);
+        durationComboBox.setEditable(false);
+        durationComboBox.setPromptText("Select duration");
+        durationComboBox.valueProperty().addListener((obs, old, val) -> calculateValidity());
+
+        // Mumbai transport locations
+        sourceComboBox = new ComboBox<>();
+        sourceComboBox.getItems().addAll(PassRules.STATIONS);
+        sourceComboBox.getItems().add("Other");
+        sourceComboBox.setEditable(true);
+        sourceComboBox.setPromptText("Select or enter source");
+
+        destinationComboBox = new ComboBox<>();
+        destinationComboBox.getItems().addAll(PassRules.STATIONS);
+        destinationComboBox.getItems().add("Other");
+        destinationComboBox.setEditable(true);
+        destinationComboBox.setPromptText("Select or enter destination");
+
+        validUntilLabel = new Label("Validity will be calculated");
+        validUntilLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: #666;");
+        validUntilLabel.setWrapText(true);
+
+        Button addBtn = buildActionButton("Add Pass", "#2e7d32", event -> addPass());
+        Button updateBtn = buildActionButton("Update Selected", "#1565c0", event -> updatePass());
+        Button deleteBtn = buildActionButton("Delete Selected", "#b71c1c", event -> deletePass());
+        Button resetBtn = buildActionButton("Reset Form", "#546e7a", event -> clearForm());
+
+        addBtn.setDefaultButton(true);
+        deleteBtn.setDisable(true);
+        updateBtn.disableProperty().bind(table.getSelectionModel().selectedItemProperty().isNull());
+        deleteBtn.disableProperty().bind(table.getSelectionModel().selectedItemProperty().isNull());
+
+        ColumnConstraints cc1 = new ColumnConstraints();
+        cc1.setPercentWidth(50);
+        ColumnConstraints cc2 = new ColumnConstraints();
+        cc2.setPercentWidth(50);
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(12);
+        grid.add(new Label("Passenger Name:"), 0, 0);
+        grid.add(passengerNameField, 0, 1, 2, 1);
+        grid.add(new Label("Pass Type:"), 0, 2);
+        grid.add(typeSuggestions, 0, 3, 2, 1);
+        grid.add(new Label("Duration:"), 0, 4);
+        grid.add(durationComboBox, 0, 5, 2, 1);
+        grid.add(new Label("Source:"), 0, 6);
+        grid.add(sourceComboBox, 0, 7, 2, 1);
+        grid.add(new Label("Destination:"), 0, 8);
+        grid.add(destinationComboBox, 0, 9, 2, 1);
+        grid.add(new Label("Valid Until:"), 0, 10);
+        grid.add(validUntilLabel, 0, 11, 2, 1);
+        grid.getColumnConstraints().addAll(cc1, cc2);
+
+        HBox buttonsTop = new HBox(10, addBtn, updateBtn);
+        HBox buttonsBottom = new HBox(10, deleteBtn, resetBtn);
+        buttonsTop.setAlignment(Pos.CENTER);
+        buttonsBottom.setAlignment(Pos.CENTER);
+
+        VBox container = new VBox(12, header, grid, buttonsTop, buttonsBottom);
+        container.setPadding(new Insets(14));
+        container.setStyle("-fx-background-color: linear-gradient(#ffffff, #f2f4f7); -fx-background-radius: 12; -fx-border-radius: 12; -fx-border-color: #dcdfe4;");
+        return container;
+    }
+
+    private Button buildActionButton(String text, String color, javafx.event.EventHandler<javafx.event.ActionEvent> handler) {
+        Button button = new Button(text);
+        button.setMaxWidth(Double.MAX_VALUE);
+        button.setOnAction(handler);
+        button.setStyle("-fx-background-color: " + color + "; -fx-text-fill: white; -fx-font-weight: bold;");
+        HBox.setHgrow(button, Priority.ALWAYS);
+        return button;
+    }
+
+private VBox buildDashboardPanel() {
+    Label header = new Label("Insights & Trends");
+    header.setStyle("-fx-font-size: 18px; -fx-font-weight: bold;");
+
+    totalPassLabel = buildMetricLabel("Total Passes", "0");
+    activePassLabel = buildMetricLabel("Active Passes", "0");
+    expiringSoonLabel = buildMetricLabel("Expiring in ≤5 days", "0");
+
+    HBox statRow = new HBox(10,
+            buildMetricCard(totalPassLabel, "#1565c0"),
+            buildMetricCard(activePassLabel, "#2e7d32"));
+    HBox statRow2 = new HBox(10,
+            buildMetricCard(expiringSoonLabel, "#d84315"));
+    statRow.setAlignment(Pos.CENTER);
+    statRow2.setAlignment(Pos.CENTER_LEFT);
+
+    passTypeChart = new PieChart();
+    passTypeChart.setTitle("Pass Type Distribution");
+    passTypeChart.setLegendVisible(true);
+    passTypeChart.setLabelsVisible(true);
+    passTypeChart.setStartAngle(90);
+
+    // ✅ Ensure it’s always visible
+    passTypeChart.setPrefSize(350, 260);
+    passTypeChart.setMinSize(300, 240);
+    VBox.setVgrow(passTypeChart, Priority.ALWAYS);
+
+    Button refreshBtn = new Button("Refresh Dashboard");
+    refreshBtn.setOnAction(e -> refreshDashboard());
+    refreshBtn.setStyle("-fx-background-color: #37474f; -fx-text-fill: white; -fx-font-weight: bold;");
+
+    // ✅ Wrap the chart inside a ScrollPane to ensure it's shown even when resized
+    ScrollPane chartContainer = new ScrollPane(passTypeChart);
+    chartContainer.setFitToWidth(true);
+    chartContainer.setPrefViewportHeight(280);
+    chartContainer.setStyle("-fx-background-color: transparent;");
+
+    VBox card = new VBox(14, header, statRow, statRow2, chartContainer, refreshBtn);
+    card.setPadding(new Insets(14));
+    card.setStyle("-fx-background-color: linear-gradient(#ffffff, #eef2f7); -fx-background-radius: 12; "
+            + "-fx-border-radius: 12; -fx-border-color: #dcdfe4;");
+    card.setPrefHeight(500);
+    card.setMinHeight(480);
+
+    return card;
+}
+
+
+    private Label buildMetricLabel(String title, String value) {
+        Label label = new Label(value);
+        label.setStyle("-fx-font-size: 26px; -fx-font-weight: bold;");
+        Tooltip tooltip = new Tooltip(title);
+        label.setTooltip(tooltip);
+        return label;
+    }
+
+    private VBox buildMetricCard(Label valueLabel, String color) {
+        String title = valueLabel.getTooltip() != null ? valueLabel.getTooltip().getText() : "";
+        Label name = new Label(title);
+        name.setStyle("-fx-text-fill: rgba(255,255,255,0.85); -fx-font-weight: 600;");
+        valueLabel.setTextFill(Color.WHITE);
+
+        VBox box = new VBox(6, name, valueLabel);
+        box.setAlignment(Pos.CENTER_LEFT);
+        box.setPadding(new Insets(12));
+        box.setPrefWidth(150);
+        box.setStyle("-fx-background-color: " + color + "; -fx-background-radius: 10;");
+        return box;
+    }
+
+    private VBox buildSearchPanel() {
+        Label title = new Label("Pass Directory");
+        title.setStyle("-fx-font-size: 20px; -fx-font-weight: bold;");
+
+        searchField = new TextField();
+        searchField.setPromptText("Search by name, type or status...");
+        searchField.textProperty().addListener((obs, old, val) -> searchDebounce.playFromStart());
+        searchField.setOnKeyPressed(evt -> {
+            if (evt.getCode() == KeyCode.ENTER) {
+                searchDebounce.stop();
+                applyFilters();
+            }
+        });
+
+        ToggleGroup filterGroup = new ToggleGroup();
+        showAllToggle = new ToggleButton("All");
+        showAllToggle.setToggleGroup(filterGroup);
+        showAllToggle.setSelected(true);
+        activeToggle = new ToggleButton("Active");
+        activeToggle.setToggleGroup(filterGroup);
+        expiredToggle = new ToggleButton("Expired");
+        expiredToggle.setToggleGroup(filterGroup);
+
+        filterGroup.selectedToggleProperty().addListener((obs, old, val) -> applyFilters());
+        HBox filters = new HBox(8, showAllToggle, activeToggle, expiredToggle);
+        filters.setAlignment(Pos.CENTER_LEFT);
+
+        Button clearFilters = new Button("Clear Filters");
+        clearFilters.setOnAction(e -> {
+            searchField.clear();
+            showAllToggle.setSelected(true);
+            table.getSelectionModel().clearSelection();
+        });
+
+        VBox box = new VBox(8, title, searchField, filters, clearFilters);
+        box.setPadding(new Insets(0, 12, 12, 0));
+        return box;
+    }
+
+    private HBox buildTopBar(Stage stage) {
+        MenuBar menuBar = new MenuBar();
+
+        Menu fileMenu = new Menu("File");
+        MenuItem refreshItem = new MenuItem("Reload From Database");
+        refreshItem.setOnAction(e -> loadPasses());
+        MenuItem importItem = new MenuItem("Import Passes from CSV...");
+        importItem.setOnAction(e -> importPasses(stage));
+        MenuItem exportItem = new MenuItem("Export Passes...");
+        exportItem.setOnAction(e -> exportPasses(stage));
+        MenuItem exitItem = new MenuItem("Exit");
+        exitItem.setOnAction(e -> stage.close());
+        fileMenu.getItems().addAll(refreshItem, importItem, exportItem, new SeparatorMenuItem(), exitItem);
+
+        Menu helpMenu = new Menu("Help");
+        MenuItem aboutItem = new MenuItem("About");
+        aboutItem.setOnAction(e -> showInfo("""
+                Sustainable transit management supporting SDG 11.
+                Track passes with live analytics and expiry alerts.
+                """));
+        MenuItem poolItem = new MenuItem("Connection Pool Stats");
+        poolItem.setOnAction(e -> showInfo(connectionPool.metrics().toString()));
+        MenuItem metricsItem = new MenuItem("Performance Metrics");
+        metricsItem.setOnAction(e -> showInfo(metrics.report()));
+        helpMenu.getItems().addAll(aboutItem, poolItem, metricsItem);
+
+        menuBar.getMenus().addAll(fileMenu, helpMenu);
+
+        userBadge = new Label();
+        userBadge.setStyle("-fx-text-fill: #37474f; -fx-font-weight: bold;");
+        updateUserBadge();
+
+        Button logoutBtn = new Button("Logout");
+        logoutBtn.setOnAction(e -> logout(stage));
+        logoutBtn.setStyle("-fx-background-color: #c62828; -fx-text-fill: white; -fx-font-weight: bold;");
+
+        HBox userBox = new HBox(10, userBadge, logoutBtn);
+        userBox.setAlignment(Pos.CENTER_RIGHT);
+
+        BorderPane menuRow = new BorderPane();
+        menuRow.setLeft(menuBar);
+        menuRow.setRight(userBox);
+        menuRow.setPadding(new Insets(0, 8, 0, 0));
+
+        Label banner = new Label(" Sustainable Cities – Inclusive Mobility ");
+        banner.setStyle("-fx-text-fill: white; -fx-font-size: 15px; -fx-font-weight: bold;");
+
+        HBox bannerBox = new HBox(banner);
+        bannerBox.setAlignment(Pos.CENTER);
+        bannerBox.setPadding(new Insets(6));
+        bannerBox.setStyle("-fx-background-color: linear-gradient(to right, #1e88e5, #43a047);");
+
+        Tooltip.install(banner, new Tooltip("SDG 11: Sustainable Cities & Communities"));
+
+        VBox top = new VBox(menuRow, bannerBox);
+        return new HBox(top);
+    }
+
+
+    private HBox buildStatusBar() {
+        statusLabel = new Label("Ready.");
+        statusLabel.setPadding(new Insets(4, 0, 4, 8));
+
+        ProgressIndicator progressIndicator = new ProgressIndicator();
+        progressIndicator.setPrefSize(28, 28);
+        progressIndicator.visibleProperty().bind(dbRequestsInFlight.greaterThan(0));
+
+        Label inFlightLabel = new Label();
+        inFlightLabel.textProperty().bind(Bindings.when(dbRequestsInFlight.greaterThan(0))
+                .then(Bindings.concat("Waiting on database (", dbRequestsInFlight.asString(), ")"))
+                .otherwise(""));
+        inFlightLabel.setStyle("-fx-text-fill: #546e7a;");
+
+        Button cancelBtn = new Button("Cancel");
+        cancelBtn.visibleProperty().bind(dbRequestsInFlight.greaterThan(0));
+        cancelBtn.managedProperty().bind(cancelBtn.visibleProperty());
+        cancelBtn.setOnAction(e -> {
+            // saves are left to finish: one that already committed must not look undone
+            int cancelled = dbExecutor.cancelAll();
+            showStatus(cancelled == 0
+                    ? "Only saves are in progress; they cannot be cancelled."
+                    : "Cancelled " + cancelled + " pending database requests.");
+        });
+
+        HBox bar = new HBox(10, statusLabel, new Region(), inFlightLabel, progressIndicator, cancelBtn);
+        HBox.setHgrow(bar.getChildren().get(1), Priority.ALWAYS);
+        bar.setAlignment(Pos.CENTER_LEFT);
+        bar.setPadding(new Insets(6, 12, 6, 12));
+        bar.setStyle("-fx-background-color: #f8f9fb; -fx-border-color: #d7dce3; -fx-border-width: 1 0 0 0;");
+        return bar;
+    }
+
+    // --- filtering + analytics ---
+    private void applyFilters() {
+        watchdog.action("applyFilters");
+        if (pagedMode) {
+            pagedPasses.setQuery(currentQuery());
+            showStatus("Applied filters.");
+            return;
+        }
+        filterPipeline.submit(searchField.getText(), selectedStatus());
+    }
+
+    /** Swaps a finished background search into the table in a single predicate change. */
+    private void showFilterResult(FilterPipeline.Result result) {
+        watchdog.action("showFilterResult");
+        if (pagedMode) return;
+        metrics.timer("ui.search").recordNanos(result.elapsedNanos());
+        long start = System.nanoTime();
+        PassSearchIndex.Matches matches = result.matches();
+        filteredPasses.setPredicate(matches == null ? null : pass -> searchIndex.matches(matches, pass));
+        metrics.timer("ui.filter.apply").recordSince(start);
+        showStatus(String.format(Locale.ROOT, "Showing %d of %d passes (search %.1f ms).",
+                filteredPasses.size(), masterPasses.size(), result.elapsedNanos() / 1_000_000.0));
+    }
+
+    /** The directory's search text, status toggle and sort order as a database query. */
+    private PassQuery currentQuery() {
+        PassQuery.SortColumn sortColumn = PassQuery.SortColumn.ID;
+        boolean ascending = true;
+        if (!table.getSortOrder().isEmpty()) {
+            TableColumn<Pass, ?> column = table.getSortOrder().get(0);
+            if (column.getUserData() instanceof PassQuery.SortColumn key) {
+                sortColumn = key;
+                ascending = column.getSortType() == TableColumn.SortType.ASCENDING;
+            }
+        }
+        return new PassQuery(searchField.getText(), selectedStatus(), sortColumn, ascending);
+    }
+
+    private PassQuery.Status selectedStatus() {
+        Toggle selected = showAllToggle.getToggleGroup().getSelectedToggle();
+        if (selected == activeToggle) return PassQuery.Status.ACTIVE;
+        if (selected == expiredToggle) return PassQuery.Status.EXPIRED;
+        return PassQuery.Status.ALL;
+    }
+
+    /** Whether the search box or the status toggle narrows the directory. */
+    private boolean filterActive() {
+        return searchField != null && (!searchField.getText().isBlank() || selectedStatus() != PassQuery.Status.ALL);
+    }
+
+    /** Moves the expiry engine on just after midnight, so statuses and counts follow the date. */
+    private void scheduleMidnightRefresh() {
+        if (midnightRefresh != null) {
+            midnightRefresh.stop();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        long millisToMidnight = ChronoUnit.MILLIS.between(now, now.toLocalDate().plusDays(1).atStartOfDay());
+        midnightRefresh = new PauseTransition(Duration.millis(millisToMidnight + 1_000));
+        midnightRefresh.setOnFinished(e -> {
+            expiryEngine.advance();
+            scheduleMidnightRefresh();
+        });
+        midnightRefresh.play();
+    }
+
+    /** The date changed: redraw the counters and visible rows, and re-run a filter that depends on status. */
+    private void onExpiryTransitions(ExpiryEngine.Transitions transitions) {
+        watchdog.action("onExpiryTransitions");
+        if (totalPassLabel == null) return;
+        updateSummary();
+        refreshTable();
+        if (!transitions.isEmpty()) {
+            showStatus(String.format(Locale.ROOT, "New day: %d passes expired, %d now expiring soon.",
+                    transitions.expired().size(), transitions.enteredExpiringWindow().size()));
+        }
+        // status words ("expiring", "active") and the status toggle now match different rows
+        if (filterActive()) {
+            filterPipeline.invalidate();
+            applyFilters();
+        }
+    }
+
+    private void refreshDashboard() {
+        watchdog.action("refreshDashboard");
+        metricsRepository.invalidate();
+        updateSummary();
+        showStatus("Dashboard refreshed.");
+    }
+
+private void updateSummary() {
+    watchdog.action("updateSummary");
+    if (pagedMode) {
+        // rows are not held in memory in paged mode, so the database aggregates them
+        onFx(metricsRepository.metrics(), metrics -> {
+            if (pagedMode) {
+                uiUpdates.schedule(totalPassLabel, () -> showSummary(metrics.total(), metrics.active(),
+                        metrics.expiringSoon(), metrics.countByType()));
+            }
+        }, ex -> showStatus("Could not refresh dashboard: " + ex.getMessage()));
+        return;
+    }
+    // the figures are read when the update runs, so a burst of changes costs one summary per frame
+    uiUpdates.schedule(totalPassLabel, () -> {
+        long start = System.nanoTime();
+        showSummary(aggregates.total(), aggregates.active(), aggregates.expiringSoon(), aggregates.countByType());
+        metrics.timer("ui.summary").recordSince(start);
+    });
+}
+
+/** Re-renders the visible rows on the next pulse, e.g. after a pass changed in place or the date rolled over. */
+private void refreshTable() {
+    watchdog.action("refreshTable");
+    uiUpdates.schedule(table, () -> {
+        long start = System.nanoTime();
+        table.refresh();
+        metrics.timer("ui.tableRefresh").recordSince(start);
+    });
+}
+
+private void showSummary(int total, int active, int expiringSoon, Map<String, Integer> countByType) {
+    totalPassLabel.setText(String.valueOf(total));
+    activePassLabel.setText(String.valueOf(active));
+    expiringSoonLabel.setText(String.valueOf(expiringSoon));
+    showTypeCounts(countByType.isEmpty() ? Map.of("No passes yet", 1) : countByType);
+}
+
+/**
+ * Brings the pie chart's slices in line with {@code counts} in place: existing slices change
+ * value and only types that appeared or vanished add or remove a slice.
+ */
+private void showTypeCounts(Map<String, Integer> counts) {
+    ObservableList<PieChart.Data> slices = passTypeChart.getData();
+    List<PieChart.Data> gone = new ArrayList<>();
+    Map<String, PieChart.Data> byName = new HashMap<>();
+    for (PieChart.Data slice : slices) {
+        if (counts.containsKey(slice.getName())) {
+            byName.put(slice.getName(), slice);
+        } else {
+            gone.add(slice);
+        }
+    }
+    slices.removeAll(gone);
+    counts.forEach((type, count) -> {
+        PieChart.Data slice = byName.get(type);
+        if (slice == null) {
+            slices.add(new PieChart.Data(type, count));
+        } else if (slice.getPieValue() != count) {
+            slice.setPieValue(count);
+        }
+    });
+}
+
+
+    // --- CRUD operations ---
+    private void addPass() {
+        watchdog.action("addPass");
+        Optional<Pass> candidate = readForm();
+        if (candidate.isEmpty()) return;
+
+        Pass pass = candidate.get();
+        onFx(passRepository.insert(pass), id -> {
+            pass.setId(id);
+            if (pagedMode) {
+                directoryRowCount++;
+                pagedPasses.refresh();
+            } else {
+                masterPasses.add(pass);
+                table.getSelectionModel().select(pass);
+            }
+            clearForm();
+            updateSummary();
+            showStatus("Pass added successfully.");
+        }, ex -> showError("Could not add pass", ex));
+    }
+
+    private void updatePass() {
+        watchdog.action("updatePass");
+        Pass selected = table.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            showInfo("Select a pass to update.");
+            return;
+        }
+        Optional<Pass> candidate = readForm();
+        if (candidate.isEmpty()) return;
+
+        Pass pass = candidate.get();
+        onFx(passRepository.update(selected.getId(), pass), updated -> {
+            if (!updated) {
+                dropMissingPass(selected, "This pass no longer exists; it was deleted at another counter.");
+                return;
+            }
+            selected.updateFrom(pass);
+            refreshTable();
+            updateSummary();
+            clearForm();
+            showStatus("Pass updated.");
+        }, ex -> showError("Could not update pass", ex));
+    }
+
+    private void deletePass() {
+        watchdog.action("deletePass");
+        Pass selected = table.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            showInfo("Select a pass to delete.");
+            return;
+        }
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION,
+                "Delete selected pass?", ButtonType.OK, ButtonType.CANCEL);
+        confirm.setHeaderText("Confirm delete");
+        confirm.initOwner(table.getScene().getWindow());
+        confirm.showAndWait().filter(btn -> btn == ButtonType.OK).ifPresent(btn ->
+                onFx(passRepository.delete(selected.getId()), deleted -> {
+                    if (!deleted) {
+                        dropMissingPass(selected, "This pass was already deleted at another counter.");
+                        return;
+                    }
+                    removeRow(selected);
+                    clearForm();
+                    updateSummary();
+                    showStatus("Pass removed.");
+                }, ex -> showError("Could not delete pass", ex)));
+    }
+
+    /** The database no longer has {@code pass}: takes it off the directory and tells the user why. */
+    private void dropMissingPass(Pass pass, String message) {
+        removeRow(pass);
+        clearForm();
+        updateSummary();
+        showInfo(message);
+        showStatus("Removed a pass that no longer exists.");
+    }
+
+    private void removeRow(Pass pass) {
+        if (pagedMode) {
+            directoryRowCount--;
+            pagedPasses.refresh();
+        } else {
+            masterPasses.remove(pass);
+        }
+    }
+
+    private void importPasses(Stage stage) {
+        watchdog.action("importPasses");
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Passes");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = chooser.showOpenDialog(stage);
+        if (file == null) return;
+
+        // chunks can finish faster than frames; only the latest progress is shown
+        AtomicReference<PassCsvImporter.Progress> latest = new AtomicReference<>();
+        CompletableFuture<PassCsvImporter.Result> importing = csvImporter.importFile(file.toPath(), progress -> {
+            if (latest.getAndSet(progress) == null) {
+                Platform.runLater(() -> {
+                    PassCsvImporter.Progress shown = latest.getAndSet(null);
+                    uiUpdates.schedule(statusLabel, () -> statusLabel.setText(String.format(Locale.ROOT,
+                            "Importing %s: %,d rows read, %,d imported, %,d rejected (%.0f%%)",
+                            file.getName(), shown.rowsRead(), shown.imported(), shown.rejected(), shown.fraction() * 100)));
+                });
+            }
+        });
+        // committed chunks stay even if the import fails or is cancelled part way
+        importing.whenCompleteAsync((result, ex) -> loadPasses(), Platform::runLater);
+        onFx(importing, result -> {
+            String summary = String.format(Locale.ROOT, "Imported %,d passes at %,.0f rows/s.", result.imported(), result.rowsPerSecond());
+            if (result.rejectFile() != null) {
+                showInfo(summary + "\n" + result.rejected() + " rows were rejected; see " + result.rejectFile() + ".");
+            }
+            showStatus(summary);
+        }, ex -> showError("Import stopped", ex));
+    }
+
+    /** Exports the passes matching the directory's current search, status filter and sort order. */
+    private void exportPasses(Stage stage) {
+        watchdog.action("exportPasses");
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Passes");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV files", "*.csv"),
+                new FileChooser.ExtensionFilter("Columnar pass export", "*.tpcol"));
+        chooser.setInitialFileName("passes.csv");
+        File file = chooser.showSaveDialog(stage);
+        if (file == null) return;
+
+        long start = System.nanoTime();
+        AtomicReference<PassExporter.Progress> latest = new AtomicReference<>();
+        PassExporter.Format format = PassExporter.Format.forFile(file.toPath());
+        onFx(exporter.export(currentQuery(), file.toPath(), format, progress -> {
+            if (latest.getAndSet(progress) == null) {
+                Platform.runLater(() -> {
+                    PassExporter.Progress shown = latest.getAndSet(null);
+                    double seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+                    uiUpdates.schedule(statusLabel, () -> statusLabel.setText(String.format(Locale.ROOT,
+                            "Exporting %s: %,d rows (%,.0f rows/s)", file.getName(), shown.rows(), shown.rows() / seconds)));
+                });
+            }
+        }), result -> showStatus(String.format(Locale.ROOT, "Exported %,d passes to %s at %,.0f rows/s (%.1f MB/s).",
+                result.rows(), file.getName(), result.rowsPerSecond(), result.megabytesPerSecond())),
+                ex -> showError("Export failed", ex));
+    }
+
+    // --- form helpers ---
+    private void calculateValidity() {
+        String durationType = durationComboBox.getValue();
+        if (durationType != null && !durationType.isEmpty()) {
+            int days = PassRules.durationDays(durationType);
+            if (days > 0) {
+                LocalDate validDate = LocalDate.now().plusDays(days);
+                validUntilLabel.setText("Valid until: " + validDate.toString());
+                validUntilLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: #2e7d32;");
+            } else {
+                validUntilLabel.setText("Select duration to calculate validity");
+                validUntilLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: #666;");
+            }
+        } else {
+            validUntilLabel.setText("Validity will be calculated");
+            validUntilLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: #666;");
+        }
+    }
+
+    private Optional<Pass> readForm() {
+        String passengerName = passengerNameField.getText().trim();
+        String type = typeSuggestions.getValue();
+        String durationType = durationComboBox.getValue();
+        // Handle editable ComboBoxes - get value or editor text
+        String source = sourceComboBox.getValue() != null && !sourceComboBox.getValue().isEmpty() 
+                ? sourceComboBox.getValue().trim() 
+                : (sourceComboBox.getEditor().getText() != null ? sourceComboBox.getEditor().getText().trim() : "");
+        String destination = destinationComboBox.getValue() != null && !destinationComboBox.getValue().isEmpty()
+                ? destinationComboBox.getValue().trim()
+                : (destinationComboBox.getEditor().getText() != null ? destinationComboBox.getEditor().getText().trim() : "");
+
+        Optional<String> problem = PassRules.validate(passengerName, type, durationType, source, destination);
+        if (problem.isPresent()) {
+            showInfo(problem.get());
+            return Optional.empty();
+        }
+        return Optional.of(PassRules.newPass(passengerName, type, durationType, source, destination, LocalDate.now()));
+    }
+
+    private void populateForm(Pass pass) {
+        if (pass == null) {
+            clearForm();
+            return;
+        }
+        passengerNameField.setText(pass.getPassengerName());
+        
+        // Extract pass type (e.g., "Bus Monthly" -> "Bus")
+        String passType = pass.getPassType();
+        String baseType = passType;
+        if (passType != null && passType.contains(" ")) {
+            baseType = passType.substring(0, passType.lastIndexOf(" "));
+        }
+        if (typeSuggestions.getItems().contains(baseType)) {
+            typeSuggestions.setValue(baseType);
+        } else {
+            typeSuggestions.getSelectionModel().clearSelection();
+        }
+        
+        // Set duration type
+        String durationType = pass.getDurationType();
+        if (durationComboBox.getItems().contains(durationType)) {
+            durationComboBox.setValue(durationType);
+        } else {
+            durationComboBox.getSelectionModel().clearSelection();
+        }
+        
+        // Set source and destination
+        if (pass.getSource() != null && !pass.getSource().isEmpty()) {
+            sourceComboBox.setValue(pass.getSource());
+            // If it's not in the list and ComboBox is editable, add it to the editor
+            if (!sourceComboBox.getItems().contains(pass.getSource())) {
+                sourceComboBox.getEditor().setText(pass.getSource());
+            }
+        }
+        
+        if (pass.getDestination() != null && !pass.getDestination().isEmpty()) {
+            destinationComboBox.setValue(pass.getDestination());
+            // If it's not in the list and ComboBox is editable, add it to the editor
+            if (!destinationComboBox.getItems().contains(pass.getDestination())) {
+                destinationComboBox.getEditor().setText(pass.getDestination());
+            }
+        }
+        
+        validUntilLabel.setText("Valid until: " + pass.getValidUntil());
+        validUntilLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: #2e7d32;");
+    }
+
+    private void clearForm() {
+        table.getSelectionModel().clearSelection();
+        passengerNameField.clear();
+        typeSuggestions.getSelectionModel().clearSelection();
+        durationComboBox.getSelectionModel().clearSelection();
+        sourceComboBox.getSelectionModel().clearSelection();
+        sourceComboBox.getEditor().clear();
+        destinationComboBox.getSelectionModel().clearSelection();
+        destinationComboBox.getEditor().clear();
+        validUntilLabel.setText("Validity will be calculated");
+        validUntilLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: #666;");
+    }
+
+    // --- database utilities ---
+    private void ensureDriver() {
+        try {
+            storageBackend.loadDriver(config);
+        } catch (ClassNotFoundException ex) {
+            showError(storageBackend.displayName() + " driver missing. Ensure its JDBC jar is on the classpath.", ex);
+            Platform.exit();
+        }
+    }
+
+    private void initDatabase() {
+        CompletableFuture<List<Integer>> migrating = dbExecutor.submit("schema.migrate", () -> new SchemaMigrator(connectionPool).migrate());
+        schemaReady = migrating.thenApply(applied -> null);
+        onFx(migrating, applied -> showStatus(applied.isEmpty()
+                        ? storageBackend.displayName() + " database ready."
+                        : storageBackend.displayName() + " database ready (applied schema "
+                                + applied.stream().map(v -> "V" + v).collect(Collectors.joining(", ")) + ")."),
+                ex -> showError("Failed to prepare database.", ex));
+    }
+
+    /**
+     * Loads the directory. Tables up to {@code directory.pagedThreshold} rows are read into memory;
+     * larger ones are browsed page by page with filtering and sorting done by the database. Rows
+     * already in memory are brought up to date with only what changed since they were read.
+     */
+    private void loadPasses() {
+        watchdog.action("loadPasses");
+        cancelPendingLoad();
+        showSnapshot();
+        int pagedThreshold = config.getInt("directory.pagedThreshold", 50_000);
+        CompletableFuture<Integer> counting = passRepository.count(PassQuery.ALL);
+        onFx(counting, total -> {
+            directoryRowCount = total;
+            if (total > pagedThreshold) {
+                syncVersion = -1;
+                masterPasses.clear();
+                usePagedDirectory(true);
+                pagedPasses.setQuery(currentQuery());
+                updateSummary();
+                showStatus("Browsing " + total + " passes page by page.");
+            } else {
+                usePagedDirectory(false);
+                if (syncVersion >= 0 && !masterPasses.isEmpty()) {
+                    syncChanges(true);
+                } else {
+                    loadAllPasses();
+                }
+            }
+        }, ex -> showError("Could not load passes.", ex));
+    }
+
+    private void usePagedDirectory(boolean paged) {
+        if (table == null || paged == pagedMode) return;
+        pagedMode = paged;
+        table.getSelectionModel().clearSelection();
+        table.setItems(paged ? pagedPasses : sortedPasses);
+    }
+
+    private void loadAllPasses() {
+        CompletableFuture<PassRepository.Directory> load = passRepository.loadDirectory();
+        pendingLoad = load;
+        onFx(load, directory -> {
+            watchdog.action("loadAllPasses result");
+            pendingLoad = null;
+            directoryLoaded = true;
+            syncVersion = directory.version();
+            List<Pass> passes = directory.passes();
+            metrics.counter("directory.rowsLoaded").add(passes.size());
+            directoryRowCount = passes.size();
+            if (masterPasses.isEmpty()) {
+                masterPasses.setAll(passes);
+            } else {
+                reconcile(passes);
+            }
+            updateSummary();
+            showStatus("Loaded " + masterPasses.size() + " passes.");
+            if (snapshotStore != null) {
+                snapshotStore.save(passes, directory.version());
+            }
+            catchUp();
+        }, ex -> {
+            pendingLoad = null;
+            showError("Could not load passes.", ex);
+        });
+    }
+
+    /**
+     * Fetches only the passes changed since {@link #syncVersion} and patches them into the list.
+     * A sync the user did not ask for only reports rows that actually changed.
+     */
+    private void syncChanges(boolean requested) {
+        long since = syncVersion;
+        if (since < 0) {
+            // no whole directory to patch; syncing would leave only the changed rows
+            loadAllPasses();
+            return;
+        }
+        CompletableFuture<PassRepository.Changes> sync = passRepository.findChanges(since);
+        pendingLoad = sync;
+        onFx(sync, changes -> {
+            watchdog.action("syncChanges result");
+            pendingLoad = null;
+            if (changes.reloadRequired()) {
+                // the database was replaced or restored, or we were away longer than deletions are kept
+                syncVersion = -1;
+                loadAllPasses();
+                return;
+            }
+            directoryLoaded = true;
+            syncVersion = changes.version();
+            metrics.counter("directory.rowsSynced").add(changes.saved().size() + changes.deleted().size());
+            int affected = changes.isEmpty() ? 0 : applyChanges(changes.saved(), new HashSet<>(changes.deleted()));
+            if (affected > 0) {
+                directoryRowCount = masterPasses.size();
+                updateSummary();
+                if (snapshotStore != null) {
+                    snapshotStore.save(new ArrayList<>(masterPasses), changes.version());
+                }
+            }
+            if (requested) {
+                showStatus(affected == 0
+                        ? "Directory is up to date (" + masterPasses.size() + " passes)."
+                        : "Synced " + affected + " changed passes.");
+            } else if (affected > 0) {
+                showStatus(affected == 1 ? "1 pass changed at another counter." : affected + " passes changed at other counters.");
+            }
+            catchUp();
+        }, ex -> {
+            pendingLoad = null;
+            showError("Could not sync passes.", ex);
+        });
+    }
+
+    /** Another client wrote to the database: patch the rows in, or re-read the visible page. */
+    private void onRemoteChange() {
+        if (table == null || currentUser == null) return;
+        metricsRepository.invalidate();
+        if (pagedMode) {
+            pagedPasses.refresh();
+            updateSummary();
+            return;
+        }
+        catchUp();
+    }
+
+    /** Syncs when the change feed has seen a newer version than the rows, unless a load is already running. */
+    private void catchUp() {
+        if (changeFeed == null || currentUser == null || pagedMode || !directoryLoaded || pendingLoad != null || syncVersion < 0) return;
+        if (changeFeed.latestVersion() > syncVersion) {
+            syncChanges(false);
+        }
+    }
+
+    /**
+     * Shows the passes saved by the previous session until the database answers; only what
+     * changed since the snapshot is then fetched and patched in.
+     */
+    private void showSnapshot() {
+        CompletableFuture<Optional<PassSnapshotStore.Snapshot>> snapshot = snapshotLoad;
+        snapshotLoad = null;
+        if (snapshot == null) return;
+        onFx(snapshot, found -> found.ifPresent(saved -> {
+            watchdog.action("showSnapshot result");
+            if (directoryLoaded || pagedMode || !masterPasses.isEmpty()) return;
+            masterPasses.setAll(saved.passes());
+            syncVersion = saved.version();
+            updateSummary();
+            showStatus("Showing " + saved.passes().size() + " passes saved "
+                    + LocalDateTime.ofInstant(Instant.ofEpochMilli(saved.savedAtMillis()), ZoneId.systemDefault())
+                            .truncatedTo(ChronoUnit.MINUTES)
+                    + "; checking for changes...");
+        }), ex -> { });
+    }
+
+    /**
+     * Brings the in-memory rows in line with {@code loaded} by id: changed rows are updated in
+     * place and only added or deleted rows change the list, so the selection and scroll position survive.
+     */
+    private void reconcile(List<Pass> loaded) {
+        Set<Integer> loadedIds = new HashSet<>(loaded.size() * 2);
+        for (Pass pass : loaded) {
+            loadedIds.add(pass.getId());
+        }
+        Set<Integer> deleted = new HashSet<>();
+        for (Pass existing : masterPasses) {
+            if (!loadedIds.contains(existing.getId())) deleted.add(existing.getId());
+        }
+        applyChanges(loaded, deleted);
+    }
+
+    /**
+     * Removes the {@code deleted} ids, then updates rows in place from {@code saved} and appends
+     * the ones not yet listed. Unchanged rows are left alone, so they fire no updates. Returns how
+     * many rows were removed, updated or added.
+     */
+    private int applyChanges(List<Pass> saved, Set<Integer> deleted) {
+        int affected = 0;
+        if (!deleted.isEmpty()) {
+            Set<Pass> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Pass existing : masterPasses) {
+                if (deleted.contains(existing.getId())) removed.add(existing);
+            }
+            // one batched change, rather than an event (and a re-filter) per row
+            masterPasses.removeAll(removed);
+            affected += removed.size();
+        }
+        Map<Integer, Pass> byId = new HashMap<>(saved.size() * 2);
+        for (Pass pass : saved) {
+            byId.put(pass.getId(), pass);
+        }
+        for (Pass existing : masterPasses) {
+            Pass current = byId.remove(existing.getId());
+            if (current != null && !existing.hasSameValues(current)) {
+                existing.updateFrom(current);
+                affected++;
+            }
+        }
+        if (!byId.isEmpty()) {
+            masterPasses.addAll(saved.stream().filter(pass -> byId.containsKey(pass.getId())).toList());
+            affected += byId.size();
+        }
+        return affected;
+    }
+
+    private void cancelPendingLoad() {
+        if (pendingLoad != null) {
+            pendingLoad.cancel(true);
+            pendingLoad = null;
+        }
+    }
+
+    /**
+     * Delivers the outcome of a database request on the JavaFX Application Thread.
+     * Cancelled requests (only reads, imports and exports can be) report nothing beyond a status message.
+     */
+    private <T> void onFx(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Exception> onFailure) {
+        future.whenCompleteAsync((value, error) -> {
+            if (error == null) {
+                onSuccess.accept(value);
+                return;
+            }
+            Throwable cause = DbExecutor.unwrap(error);
+            if (cause instanceof CancellationException) {
+                showStatus("Request cancelled.");
+            } else if (cause instanceof Exception ex) {
+                onFailure.accept(ex);
+            } else {
+                onFailure.accept(new RuntimeException(cause));
+            }
+        }, Platform::runLater);
+    }
+
+    // --- dialogs + status ---
+    private void showInfo(String message) {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION, message, ButtonType.OK);
+        alert.setHeaderText(null);
+        alert.initOwner(table != null ? table.getScene().getWindow() : null);
+        alert.showAndWait();
+    }
+
+    private void showError(String title, Exception ex) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error");
+        alert.setHeaderText(title);
+        alert.setContentText(ex.getMessage());
+        alert.showAndWait();
+        metrics.counter("ui.errors").increment();
+        LOG.log(System.Logger.Level.ERROR, title, ex);
+        showStatus(title + ": " + ex.getMessage());
+    }
+
+    /** Shows {@code message} on the next pulse; of several messages within one frame only the last is drawn. */
+    private void showStatus(String message) {
+        if (statusLabel == null) return;
+        uiUpdates.schedule(statusLabel, () -> {
+            statusLabel.setText(message);
+            if (!suppressStatusAnimation) {
+                statusLabel.setStyle("-fx-text-fill: #1b5e20;");
+                statusFade.playFromStart();
+            }
+        });
+    }
+}
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.transportpass.desktop;
+
+import javafx.animation.AnimationTimer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coalesces UI updates to at most one run per pulse. Each update has a key (the label, chart or
+ * table it redraws); scheduling a key that is already pending replaces its update, so a burst of
+ * a thousand changes between two frames redraws once, with the latest values. Pending updates run
+ * at the start of the next pulse, before layout, so they appear in that frame. The timer only runs
+ * while something is pending. All methods must be called on the JavaFX Application Thread.
+ */
+public final class UiUpdateScheduler {
+
+    private final Map<Object, Runnable> pending = new LinkedHashMap<>();
+    private final AnimationTimer pulse = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            flush();
+        }
+    };
+    private boolean armed;
+
+    /** Runs {@code update} on the next pulse, replacing any update still pending for {@code key}. */
+    public void schedule(Object key, Runnable update) {
+        pending.put(key, update);
+        if (!armed) {
+            armed = true;
+            pulse.start();
+        }
+    }
+
+    private void flush() {
+        pulse.stop();
+        armed = false;
+        if (pending.isEmpty()) return;
+        // updates scheduled while these run wait for the next pulse
+        List<Runnable> due = new ArrayList<>(pending.values());
+        pending.clear();
+        for (Runnable update : due) {
+            update.run();
+        }
+    }
+}